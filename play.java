@@ -81,6 +81,7 @@ public class play {
 [2] Retries:\t%3d
 [3] Penalty:\t%3d
 [4] Level:\t%s
+[5] Targets:\t%s
 [0] Back
 
 """;
@@ -114,6 +115,8 @@ To cancel the game, enter 'cancel'
     final TextTerminal<?> terminal;
     final List<Player> players;
     Settings settings;
+    // uniform targets between 1 and 100 unless the targets are rated by the level
+    boolean ratedTargets;
 
     play(final TextIO textIO, final TextTerminal<?> terminal) {
         this.textIO = textIO;
@@ -140,8 +143,9 @@ To cancel the game, enter 'cancel'
 
     void settings() {
         while (true) {
-            terminal.printf(SETTINGS, settings.numbers(), settings.retries(), settings.penalty(), settings.level());
-            int option = textIO.newIntInputReader().withMinVal(0).withMaxVal(4).read("Please choose");
+            terminal.printf(SETTINGS, settings.numbers(), settings.retries(), settings.penalty(), settings.level(),
+                    ratedTargets ? "rated by level" : "uniform");
+            int option = textIO.newIntInputReader().withMinVal(0).withMaxVal(5).read("Please choose");
             switch (option) {
                 case 1 -> settings = settings.withNumbers(textIO.newIntInputReader().withMinVal(2).withMaxVal(20)
                         .withDefaultValue(8).read("Number of numbers (2..20)"));
@@ -151,6 +155,8 @@ To cancel the game, enter 'cancel'
                         .withDefaultValue(5).read("Penalty after timeout (1..10)"));
                 case 4 -> settings = settings
                         .withLevel(textIO.newEnumInputReader(Level.class).withDefaultValue(Level.MEDIUM).read("Level"));
+                case 5 -> ratedTargets = textIO.newBooleanInputReader().withDefaultValue(false)
+                        .read("Rate targets by level (easy levels prefer targets most rolls can reach)");
                 case 0 -> start();
             }
         }
@@ -199,8 +205,9 @@ To cancel the game, enter 'cancel'
         if (players.isEmpty()) {
             terminal.println("No players!");
         } else {
-            Game game = new Game("console-game", new Players(players), new Numbers(settings.numbers()), new OperationAlgorithm(),
-                    settings);
+            Numbers numbers = ratedTargets ? new Numbers(settings.numbers(), settings.level())
+                    : new Numbers(settings.numbers());
+            Game game = new Game("console-game", new Players(players), numbers, new OperationAlgorithm(), settings);
 
             terminal.print(PLAY);
             while (game.hasNext()) {
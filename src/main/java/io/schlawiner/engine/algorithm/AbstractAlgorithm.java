@@ -15,17 +15,20 @@
  */
 package io.schlawiner.engine.algorithm;
 
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Base class for algorithm implementations. Iterates over all multiplier combinations (1, 10, 100 for each die) and delegates
- * to {@link #computePermutation(int, int, int, int, Solutions)} for each combination.
+ * to {@link #computePermutation(int, int, int, Candidates)} for each combination.
  */
 abstract class AbstractAlgorithm implements Algorithm {
 
     /** Maximum allowed difference between a solution result and the target. Calculated by {@code FindDifference}. */
-    private static final int DEFAULT_DIFFERENCE = 15;
+    static final int DEFAULT_DIFFERENCE = 15;
 
     // @formatter:off
-    private static final int[][] MULTIPLIERS = new int[][] {
+    static final int[][] MULTIPLIERS = new int[][] {
             { 1, 1, 1 },
             { 1, 1, 10 }, { 1, 10, 1 }, { 10, 1, 1 },
             { 1, 1, 100 }, { 1, 100, 1 }, { 100, 1, 1 },
@@ -40,8 +43,24 @@ abstract class AbstractAlgorithm implements Algorithm {
     };
     // @formatter:on
 
+    /**
+     * The multiplier combinations ordered by the number of exact hits they add for all dice rolls and targets between 1 and
+     * 100 (greedy, most first). Used in short-circuit mode, so that the enumeration stops as early as possible.
+     */
+    // @formatter:off
+    static final int[][] MULTIPLIERS_BY_HITS = new int[][] {
+            { 1, 1, 10 }, { 1, 1, 1 }, { 1, 10, 1 }, { 1, 10, 10 }, { 10, 1, 1 }, { 10, 1, 10 },
+            { 1, 100, 1 }, { 10, 10, 1 }, { 1, 1, 100 }, { 100, 1, 1 }, { 10, 10, 10 },
+            { 1, 10, 100 }, { 10, 100, 1 }, { 100, 1, 10 }, { 1, 100, 100 }, { 10, 1, 100 },
+            { 1, 100, 10 }, { 100, 10, 1 }, { 100, 1, 100 }, { 100, 100, 1 }, { 10, 10, 100 },
+            { 100, 100, 100 }, { 10, 100, 10 }, { 10, 100, 100 }, { 100, 10, 10 }, { 100, 10, 100 },
+            { 100, 100, 10 },
+    };
+    // @formatter:on
+
     private final String name;
     private final int allowedDifference;
+    private final boolean shortCircuit;
 
     AbstractAlgorithm(final String name) {
         this(name, DEFAULT_DIFFERENCE);
@@ -49,28 +68,74 @@ abstract class AbstractAlgorithm implements Algorithm {
 
     // WARNING: if allowedDifference < DEFAULT_DIFFERENCE, compute() might return empty solutions!
     AbstractAlgorithm(final String name, final int allowedDifference) {
+        this(name, allowedDifference, false);
+    }
+
+    /**
+     * Creates an algorithm which optionally stops the enumeration in {@link #compute(int, int, int, int)} as soon as an exact
+     * solution is found. The difference of the best solution is the same as with the exhaustive enumeration, but the term
+     * might be a different one.
+     */
+    AbstractAlgorithm(final String name, final int allowedDifference, final boolean shortCircuit) {
         this.name = name;
         this.allowedDifference = allowedDifference;
+        this.shortCircuit = shortCircuit;
     }
 
     @Override
     public Solutions compute(final int a, final int b, final int c, final int target) {
-        Solutions solutions = new Solutions(target, allowedDifference);
-        for (int[] multiplier : MULTIPLIERS) {
-            int am = a * multiplier[0];
-            int bm = b * multiplier[1];
-            int cm = c * multiplier[2];
-            computePermutation(am, bm, cm, target, solutions);
+        Solutions solutions = new Solutions(target, allowedDifference, shortCircuit);
+        enumerate(a, b, c, solutions);
+        return solutions;
+    }
+
+    /**
+     * Enumerates the candidates only once and buckets them by their result. The solutions for each target are then picked from
+     * the buckets and are the same as if {@link #compute(int, int, int, int)} was called for each target.
+     */
+    @Override
+    public Solutions[] computeAll(final int a, final int b, final int c, final int minTarget, final int maxTarget) {
+        if (maxTarget < minTarget) {
+            throw new IllegalArgumentException("Invalid target range: %d..%d".formatted(minTarget, maxTarget));
+        }
+        ValueBuckets buckets = new ValueBuckets(minTarget - allowedDifference, maxTarget + allowedDifference);
+        enumerate(a, b, c, buckets);
+        Solutions[] solutions = new Solutions[maxTarget - minTarget + 1];
+        for (int target = minTarget; target <= maxTarget; target++) {
+            solutions[target - minTarget] = buckets.solutions(target, allowedDifference);
         }
         return solutions;
     }
 
-    /** Computes solutions for a single multiplier combination. Called once per multiplier set. */
-    protected abstract void computePermutation(final int a, final int b, final int c, final int target,
-            final Solutions solutions);
+    /** Enumerates the candidates one multiplier combination at a time, as the stream is consumed. */
+    @Override
+    public Stream<Solution> solutions(final int a, final int b, final int c, final int target) {
+        return StreamSupport.stream(new SolutionSpliterator(this, a, b, c, target, allowedDifference), false);
+    }
+
+    private void enumerate(final int a, final int b, final int c, final Candidates candidates) {
+        for (int[] multiplier : candidates.shortCircuit() ? MULTIPLIERS_BY_HITS : MULTIPLIERS) {
+            if (candidates.complete()) {
+                return;
+            }
+            computeRow(a, b, c, multiplier, candidates);
+        }
+    }
+
+    /**
+     * Adds the candidates for the dice numbers {@code a}, {@code b}, {@code c} and a single multiplier combination. Delegates
+     * to {@link #computePermutation(int, int, int, Candidates)} using the multiplied values. Override to make use of the dice
+     * numbers or the multiplier combination.
+     */
+    protected void computeRow(final int a, final int b, final int c, final int[] multiplier, final Candidates candidates) {
+        computePermutation(a * multiplier[0], b * multiplier[1], c * multiplier[2], candidates);
+    }
+
+    /** Adds the candidates for a single multiplier combination. Called once per multiplier set. */
+    protected abstract void computePermutation(final int a, final int b, final int c, final Candidates candidates);
 
     /** Returns {@code true} if not all three values are the same, meaning permutations may produce different results. */
-    boolean differentDiceNumbers(final int a, final int b, final int c) {
+    static boolean differentDiceNumbers(final int a, final int b, final int c) {
         return a != b || a != c;
     }
 
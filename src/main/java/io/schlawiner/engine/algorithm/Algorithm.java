@@ -15,6 +15,8 @@
  */
 package io.schlawiner.engine.algorithm;
 
+import java.util.stream.Stream;
+
 /**
  * Strategy for computing solutions given three dice values and a target number. Each dice value can be multiplied by 1, 10, or
  * 100. All operator and permutation combinations are tried.
@@ -27,6 +29,37 @@ public interface Algorithm {
     /** Computes all valid solutions for the three dice values {@code a}, {@code b}, {@code c} and the given target number. */
     Solutions compute(int a, int b, int c, int target);
 
+    /**
+     * Computes the solutions for the three dice values {@code a}, {@code b}, {@code c} and every target between
+     * {@code minTarget} and {@code maxTarget} (inclusive). The solutions for {@code target} are stored at index
+     * {@code target - minTarget}.
+     * <p>
+     * The default implementation calls {@link #compute(int, int, int, int)} for each target. Implementations that enumerate
+     * the candidates should override this method and enumerate them only once.
+     */
+    default Solutions[] computeAll(final int a, final int b, final int c, final int minTarget, final int maxTarget) {
+        if (maxTarget < minTarget) {
+            throw new IllegalArgumentException("Invalid target range: %d..%d".formatted(minTarget, maxTarget));
+        }
+        Solutions[] solutions = new Solutions[maxTarget - minTarget + 1];
+        for (int target = minTarget; target <= maxTarget; target++) {
+            solutions[target - minTarget] = compute(a, b, c, target);
+        }
+        return solutions;
+    }
+
+    /**
+     * Returns a lazily evaluated stream of all distinct solutions for the three dice values {@code a}, {@code b}, {@code c}
+     * within the allowed difference from the target number. The solutions are streamed in the order they are enumerated,
+     * not ordered by their difference. Candidates are only enumerated and rendered as far as the stream is consumed.
+     * <p>
+     * The default implementation returns the best solution only. Implementations that enumerate the candidates should
+     * override this method.
+     */
+    default Stream<Solution> solutions(final int a, final int b, final int c, final int target) {
+        return Stream.ofNullable(compute(a, b, c, target).bestSolution());
+    }
+
     /** Returns a human-readable name for this algorithm. */
     String name();
 }
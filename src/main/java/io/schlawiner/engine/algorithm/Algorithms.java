@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Static helper methods for {@link Algorithm}s. */
+public final class Algorithms {
+
+    /** Number of computations below which a batch is not split any further. */
+    static final int THRESHOLD = 64;
+
+    private Algorithms() {
+    }
+
+    /**
+     * Computes the solutions for many dice rolls in parallel using the common fork/join pool.
+     *
+     * @param algorithm the algorithm to use, must be thread-safe
+     * @param dice the dice rolls, each holding three dice numbers
+     * @param targets the target numbers, one for each dice roll
+     * @return the solutions, one for each dice roll
+     */
+    public static Solutions[] solveBatch(final Algorithm algorithm, final int[][] dice, final int[] targets) {
+        Solutions[] results = new Solutions[dice.length];
+        solveBatch(algorithm, dice, targets, results);
+        return results;
+    }
+
+    /**
+     * Same as {@link #solveBatch(Algorithm, int[][], int[])}, but writes the solutions into the specified array, which must be
+     * at least as long as {@code dice}.
+     */
+    public static void solveBatch(final Algorithm algorithm, final int[][] dice, final int[] targets,
+            final Solutions[] results) {
+        solveBatch(ForkJoinPool.commonPool(), algorithm, dice, targets, results);
+    }
+
+    /**
+     * Same as {@link #solveBatch(Algorithm, int[][], int[], Solutions[])}, but uses the specified pool. Each result is
+     * computed by exactly one task and written to its own index, so the results are the same for any parallelism.
+     */
+    public static void solveBatch(final ForkJoinPool pool, final Algorithm algorithm, final int[][] dice,
+            final int[] targets, final Solutions[] results) {
+        if (targets.length != dice.length) {
+            throw new IllegalArgumentException(
+                    "Number of targets (%d) doesn't match number of dice (%d)".formatted(targets.length, dice.length));
+        }
+        if (results.length < dice.length) {
+            throw new IllegalArgumentException(
+                    "Results too small (%d) for number of dice (%d)".formatted(results.length, dice.length));
+        }
+        for (int[] roll : dice) {
+            if (roll.length != 3) {
+                throw new IllegalArgumentException("Invalid number of dice: %d".formatted(roll.length));
+            }
+        }
+        pool.invoke(new SolveTask(algorithm, dice, targets, results, 0, dice.length));
+    }
+
+    private static final class SolveTask extends RecursiveAction {
+
+        private final Algorithm algorithm;
+        private final int[][] dice;
+        private final int[] targets;
+        private final Solutions[] results;
+        private final int from;
+        private final int to;
+
+        SolveTask(final Algorithm algorithm, final int[][] dice, final int[] targets, final Solutions[] results,
+                final int from, final int to) {
+            this.algorithm = algorithm;
+            this.dice = dice;
+            this.targets = targets;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = algorithm.compute(dice[i][0], dice[i][1], dice[i][2], targets[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SolveTask(algorithm, dice, targets, results, from, middle),
+                        new SolveTask(algorithm, dice, targets, results, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.stream.Stream;
+
+import io.schlawiner.engine.util.BoundedCache;
+
+/**
+ * Algorithm which caches the solutions of another algorithm. The dice are sorted before the lookup, so all permutations of a
+ * roll share the same entry. The cache is a {@link BoundedCache}, which evicts the least recently used entry.
+ * <p>
+ * Instances are thread-safe and meant to be shared, e.g. by all games of a JVM. The returned {@link Solutions} are shared
+ * between all callers and {@linkplain Solutions#frozen() frozen}. Concurrent misses for the same entry might compute the
+ * solutions more than once, but all callers get the same instance.
+ */
+public class CachingAlgorithm implements Algorithm {
+
+    /** Enough for all rolls of three six-sided dice and targets between 1 and 100. */
+    public static final int DEFAULT_MAXIMUM_SIZE = SolutionTable.ROLLS * SolutionTable.TARGETS;
+
+    private final Algorithm algorithm;
+    private final BoundedCache<Key, Solutions> cache;
+
+    /** Creates a cache for the specified algorithm with {@value #DEFAULT_MAXIMUM_SIZE} entries. */
+    public CachingAlgorithm(final Algorithm algorithm) {
+        this(algorithm, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public CachingAlgorithm(final Algorithm algorithm, final int maximumSize) {
+        this.algorithm = algorithm;
+        this.cache = new BoundedCache<>(maximumSize);
+    }
+
+    @Override
+    public Solutions compute(final int a, final int b, final int c, final int target) {
+        int min = Math.min(a, Math.min(b, c));
+        int max = Math.max(a, Math.max(b, c));
+        int mid = a + b + c - min - max;
+        return cache.get(new Key(min, mid, max, target),
+                key -> algorithm.compute(key.a(), key.b(), key.c(), key.target()).freeze());
+    }
+
+    /** Solution streams are not cached and are delegated to the wrapped algorithm. */
+    @Override
+    public Stream<Solution> solutions(final int a, final int b, final int c, final int target) {
+        return algorithm.solutions(a, b, c, target);
+    }
+
+    @Override
+    public String name() {
+        return "Cache based on " + algorithm.name();
+    }
+
+    /** Removes all entries. Doesn't reset the counters. */
+    public void clear() {
+        cache.clear();
+    }
+
+    /** Returns the current number of entries. */
+    public int size() {
+        return cache.size();
+    }
+
+    public int maximumSize() {
+        return cache.maximumSize();
+    }
+
+    /** Returns the number of lookups which were answered from the cache. */
+    public long hits() {
+        return cache.hits();
+    }
+
+    /** Returns the number of lookups which were delegated to the wrapped algorithm. */
+    public long misses() {
+        return cache.misses();
+    }
+
+    /** Returns the number of entries which were removed because the cache was full. */
+    public long evictions() {
+        return cache.evictions();
+    }
+
+    private record Key(int a, int b, int c, int target) {
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+/** Receives the candidates enumerated by an algorithm. */
+interface Candidates {
+
+    /**
+     * Adds the formula for the values {@code a}, {@code b} and {@code c} as candidate. {@code result} is the result of the
+     * formula for these values. Invalid candidates ({@link Formula#INVALID}) must be ignored.
+     */
+    void add(Formula formula, int a, int b, int c, int result);
+
+    /**
+     * Returns {@code true} if a candidate with a result between {@code min} and {@code max} (inclusive) could change the
+     * outcome. Algorithms which know the range of a formula's results may skip the formula otherwise.
+     */
+    default boolean accepts(final int min, final int max) {
+        return true;
+    }
+
+    /** Reports the number of candidates which have been skipped, because they were not {@linkplain #accepts(int, int)}. */
+    default void prune(final int count) {
+        // ignore by default
+    }
+
+    /**
+     * Returns {@code true} if the candidates only need the first occurrence of each result, so algorithms may evaluate the
+     * {@link CanonicalFormulas} only. Return {@code false} to get every valid candidate, e.g. to enumerate all solutions.
+     */
+    default boolean canonical() {
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the candidates stop the enumeration at the first exact solution. The multiplier combinations and
+     * formulas which hit most targets are then enumerated first, see {@link AbstractAlgorithm#MULTIPLIERS_BY_HITS}.
+     */
+    default boolean shortCircuit() {
+        return false;
+    }
+
+    /** Returns {@code true} if no further candidate can be better than the ones added so far, so the enumeration can stop. */
+    default boolean complete() {
+        return false;
+    }
+}
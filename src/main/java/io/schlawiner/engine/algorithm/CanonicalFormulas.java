@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static io.schlawiner.engine.algorithm.AbstractAlgorithm.differentDiceNumbers;
+
+/**
+ * The formulas which have to be evaluated for each multiplier combination if all dice numbers are between
+ * {@value FormulaBounds#MIN_DICE} and {@value FormulaBounds#MAX_DICE}. Many candidates are algebraically equivalent to an
+ * earlier candidate, like {@code a + b - c} with the multipliers (1, 10, 1) and {@code b + a - c} with (10, 1, 1). Others are
+ * never valid, like divisions which are never exact.
+ * <p>
+ * Since there are only 216 dice rolls, the candidates are canonicalized by brute force: the enumeration is replayed for every
+ * roll, and a candidate is kept only if it's valid and produces a value which no earlier candidate has produced for at least
+ * one roll. Dropping the other candidates doesn't change the solutions: for each value, the first candidate in enumeration
+ * order is kept.
+ */
+final class CanonicalFormulas {
+
+    /** Number of multiplier combinations with the multipliers 1, 10 and 100. */
+    private static final int ROWS = 27;
+
+    private final int[][] formulas;
+    private final int[] abcFormulas;
+
+    /**
+     * Canonicalizes the specified formulas.
+     *
+     * @param formulas the formulas in the order they're evaluated for each multiplier combination
+     * @param abc whether a formula is evaluated if all three dice values are the same
+     * @param multipliers the multiplier combinations in the order they're enumerated
+     */
+    CanonicalFormulas(final Formula[] formulas, final boolean[] abc, final int[][] multipliers) {
+        boolean[][] keep = new boolean[ROWS][formulas.length];
+        Set<Integer> values = new HashSet<>();
+        for (int a = FormulaBounds.MIN_DICE; a <= FormulaBounds.MAX_DICE; a++) {
+            for (int b = FormulaBounds.MIN_DICE; b <= FormulaBounds.MAX_DICE; b++) {
+                for (int c = FormulaBounds.MIN_DICE; c <= FormulaBounds.MAX_DICE; c++) {
+                    values.clear();
+                    for (int[] multiplier : multipliers) {
+                        int row = FormulaBounds.row(multiplier);
+                        if (row == -1) {
+                            throw new IllegalArgumentException("Unsupported multipliers");
+                        }
+                        int x = a * multiplier[0];
+                        int y = b * multiplier[1];
+                        int z = c * multiplier[2];
+                        boolean permutations = differentDiceNumbers(x, y, z);
+                        for (int f = 0; f < formulas.length; f++) {
+                            if (permutations || abc[f]) {
+                                int result = formulas[f].eval(x, y, z);
+                                if (result != Formula.INVALID && values.add(result)) {
+                                    keep[row][f] = true;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        this.formulas = new int[ROWS][];
+        this.abcFormulas = new int[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            int count = 0;
+            int[] indices = new int[formulas.length];
+            for (int f = 0; f < formulas.length; f++) {
+                if (keep[row][f]) {
+                    indices[count++] = f;
+                    if (abc[f]) {
+                        abcFormulas[row]++;
+                    }
+                }
+            }
+            this.formulas[row] = Arrays.copyOf(indices, count);
+        }
+    }
+
+    /** Returns the indices of the formulas to evaluate for a multiplier combination in enumeration order. */
+    int[] formulas(final int row) {
+        return formulas[row];
+    }
+
+    /** Returns the number of formulas evaluated for a multiplier combination. */
+    int count(final int row, final boolean permutations) {
+        return permutations ? formulas[row].length : abcFormulas[row];
+    }
+
+    /** Returns the number of formulas evaluated for all multiplier combinations if all dice values are different. */
+    int count() {
+        int count = 0;
+        for (int[] row : formulas) {
+            count += row.length;
+        }
+        return count;
+    }
+}
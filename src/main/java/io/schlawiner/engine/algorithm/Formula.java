@@ -0,0 +1,32 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+/**
+ * Formula over three dice values. Formulas are evaluated for every candidate, but only rendered as a term for the candidates
+ * which are actually used as solution.
+ */
+interface Formula {
+
+    /** Result of {@link #eval(int, int, int)} if a division is not exact. Same as the result of {@link Solution#INVALID}. */
+    int INVALID = Integer.MAX_VALUE;
+
+    /** Evaluates this formula. Returns {@link #INVALID} if a division is not exact. */
+    int eval(int a, int b, int c);
+
+    /** Renders this formula as a term using the specified values. */
+    String term(int a, int b, int c);
+}
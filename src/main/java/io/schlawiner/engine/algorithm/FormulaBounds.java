@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+/**
+ * The range of results of {@link OperationFormula}s for all dice numbers between {@value #MIN_DICE} and {@value #MAX_DICE}
+ * and each multiplier combination. Used to skip formulas which can't produce a result close enough to the target.
+ * <p>
+ * Invalid results are ignored. If a formula doesn't produce any valid result for a multiplier combination, its range is
+ * empty: the minimum is greater than the maximum.
+ */
+final class FormulaBounds {
+
+    static final int MIN_DICE = 1;
+    static final int MAX_DICE = 6;
+
+    /** Number of multiplier combinations with the multipliers 1, 10 and 100. */
+    private static final int ROWS = 27;
+
+    private final OperationFormula[] formulas;
+    private final int[][] min;
+    private final int[][] max;
+    private final int[] rowMin;
+    private final int[] rowMax;
+
+    /** Computes the bounds of the specified formulas. The formula indices used by the accessors refer to this array. */
+    FormulaBounds(final OperationFormula[] formulas) {
+        this.formulas = formulas;
+        this.min = new int[ROWS][formulas.length];
+        this.max = new int[ROWS][formulas.length];
+        this.rowMin = new int[ROWS];
+        this.rowMax = new int[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            int ma = multiplier(row / 9);
+            int mb = multiplier(row / 3 % 3);
+            int mc = multiplier(row % 3);
+            rowMin[row] = Integer.MAX_VALUE;
+            rowMax[row] = Integer.MIN_VALUE;
+            for (int f = 0; f < formulas.length; f++) {
+                int lower = Integer.MAX_VALUE;
+                int upper = Integer.MIN_VALUE;
+                for (int a = MIN_DICE; a <= MAX_DICE; a++) {
+                    for (int b = MIN_DICE; b <= MAX_DICE; b++) {
+                        for (int c = MIN_DICE; c <= MAX_DICE; c++) {
+                            int result = formulas[f].eval(a * ma, b * mb, c * mc);
+                            if (result != Formula.INVALID) {
+                                lower = Math.min(lower, result);
+                                upper = Math.max(upper, result);
+                            }
+                        }
+                    }
+                }
+                min[row][f] = lower;
+                max[row][f] = upper;
+                rowMin[row] = Math.min(rowMin[row], lower);
+                rowMax[row] = Math.max(rowMax[row], upper);
+            }
+        }
+    }
+
+    /** Returns {@code true} if all dice numbers are covered by the bounds. */
+    static boolean dice(final int a, final int b, final int c) {
+        return dice(a) && dice(b) && dice(c);
+    }
+
+    /** Returns the row of the specified multiplier combination or -1 if it isn't made of the multipliers 1, 10 and 100. */
+    static int row(final int[] multiplier) {
+        int row = 0;
+        for (int m : multiplier) {
+            int digit = switch (m) {
+                case 1 -> 0;
+                case 10 -> 1;
+                case 100 -> 2;
+                default -> -1;
+            };
+            if (digit == -1) {
+                return -1;
+            }
+            row = row * 3 + digit;
+        }
+        return row;
+    }
+
+    OperationFormula[] formulas() {
+        return formulas;
+    }
+
+    int min(final int row, final int formula) {
+        return min[row][formula];
+    }
+
+    int max(final int row, final int formula) {
+        return max[row][formula];
+    }
+
+    /** Returns the minimum of all formulas for a multiplier combination. */
+    int rowMin(final int row) {
+        return rowMin[row];
+    }
+
+    /** Returns the maximum of all formulas for a multiplier combination. */
+    int rowMax(final int row) {
+        return rowMax[row];
+    }
+
+    private static int multiplier(final int digit) {
+        return digit == 0 ? 1 : digit == 1 ? 10 : 100;
+    }
+
+    private static boolean dice(final int value) {
+        return value >= MIN_DICE && value <= MAX_DICE;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Solution table stored in a file which is memory-mapped when it's opened. All processes which open the same file share one
+ * copy in the page cache, and opening the file doesn't compute anything. For every sorted dice roll and every target between
+ * {@value SolutionTable#MIN_TARGET} and {@value SolutionTable#MAX_TARGET}, the file holds the best solution and the
+ * solutions which are up to the largest {@link io.schlawiner.engine.game.Level#maxDifference() level difference} worse. So
+ * {@link Solutions#bestSolution(io.schlawiner.engine.game.Level)} returns the same solution as for computed solutions.
+ * <p>
+ * Terms are not stored as strings. Each term is split into a pattern, which is the term with its three numbers replaced by
+ * {@value #PLACEHOLDER}, and the three numbers. The patterns are stored once in a dictionary, each entry refers to its
+ * pattern by index. The file layout is (all numbers big-endian):
+ * <pre>
+ * int    magic {@value #MAGIC}
+ * int    version {@value #VERSION}
+ * int    allowed difference
+ * int    number of patterns
+ * int[]  end offset of each pattern in the pattern bytes
+ * byte[] UTF-8 bytes of all patterns
+ * slot[] slots 0 to the largest level difference for each sorted roll and target, {@value #ENTRY_BYTES} bytes each. Slot
+ *        i holds the solution whose difference to the target is the best difference plus i:
+ *        short pattern index or {@value #NO_SOLUTION}, short result, short[3] numbers
+ * </pre>
+ * The patterns are decoded when the file is opened, the slots are read from the mapped file on each lookup. Dice or
+ * targets outside the table are delegated to a fallback algorithm. Instances are thread-safe.
+ */
+public class MappedSolutionTable implements Algorithm {
+
+    static final int MAGIC = 0x5343484C;
+    static final int VERSION = 2;
+    static final int ENTRY_BYTES = 10;
+    static final int SLOTS = Solutions.LEVEL_SPREAD + 1;
+    static final short NO_SOLUTION = -1;
+    static final char PLACEHOLDER = '_';
+
+    private static final int NUMBERS = 3;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    // ------------------------------------------------------ write
+
+    /** Computes all rolls and targets using {@link OperationAlgorithm} and writes the table to the specified file. */
+    public static void write(final Path path) throws IOException {
+        write(path, new OperationAlgorithm());
+    }
+
+    /**
+     * Computes all rolls and targets using the specified algorithm and writes the table to the specified file. The terms of
+     * the algorithm must contain exactly three numbers between 0 and {@value Short#MAX_VALUE}. The allowed difference of the
+     * table is the allowed difference of the computed solutions, which must be the same for all rolls and targets.
+     */
+    public static void write(final Path path, final Algorithm algorithm) throws IOException {
+        int allowedDifference = -1;
+        Map<String, Integer> patternIndex = new HashMap<>();
+        List<String> patterns = new ArrayList<>();
+        ByteBuffer entries = ByteBuffer.allocate(SolutionTable.ROLLS * SolutionTable.TARGETS * SLOTS * ENTRY_BYTES);
+        int[] numbers = new int[NUMBERS];
+        for (int a = SolutionTable.MIN_DICE; a <= SolutionTable.MAX_DICE; a++) {
+            for (int b = a; b <= SolutionTable.MAX_DICE; b++) {
+                for (int c = b; c <= SolutionTable.MAX_DICE; c++) {
+                    Solutions[] all = algorithm.computeAll(a, b, c, SolutionTable.MIN_TARGET, SolutionTable.MAX_TARGET);
+                    int offset = SolutionTable.rollIndex(a, b, c) * SolutionTable.TARGETS * SLOTS * ENTRY_BYTES;
+                    for (int i = 0; i < all.length; i++) {
+                        if (allowedDifference == -1) {
+                            allowedDifference = all[i].allowedDifference();
+                        } else if (all[i].allowedDifference() != allowedDifference) {
+                            throw new IllegalArgumentException("Allowed difference %d of %s differs from %d".formatted(
+                                    all[i].allowedDifference(), algorithm.name(), allowedDifference));
+                        }
+                        Solution best = all[i].bestSolution();
+                        int bestDifference = best == null ? 0 : Math.abs(best.result() - SolutionTable.MIN_TARGET - i);
+                        for (int slot = 0; slot < SLOTS; slot++) {
+                            Solution solution = best == null ? null : all[i].solution(bestDifference + slot);
+                            int position = offset + (i * SLOTS + slot) * ENTRY_BYTES;
+                            if (solution == null) {
+                                entries.putShort(position, NO_SOLUTION);
+                            } else {
+                                String pattern = pattern(solution.term(), numbers);
+                                int index = patternIndex.computeIfAbsent(pattern, p -> {
+                                    patterns.add(p);
+                                    return patterns.size() - 1;
+                                });
+                                entries.putShort(position, (short) index);
+                                entries.putShort(position + 2, (short) solution.result());
+                                for (int n = 0; n < NUMBERS; n++) {
+                                    entries.putShort(position + 4 + 2 * n, (short) numbers[n]);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (patterns.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many patterns: %d".formatted(patterns.size()));
+        }
+
+        byte[][] bytes = new byte[patterns.size()][];
+        int patternBytes = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = patterns.get(i).getBytes(StandardCharsets.UTF_8);
+            patternBytes += bytes[i].length;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + bytes.length * Integer.BYTES + patternBytes);
+        header.putInt(MAGIC).putInt(VERSION).putInt(allowedDifference).putInt(bytes.length);
+        int end = 0;
+        for (byte[] pattern : bytes) {
+            end += pattern.length;
+            header.putInt(end);
+        }
+        for (byte[] pattern : bytes) {
+            header.put(pattern);
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = new ByteBuffer[] { header, entries };
+            while (header.hasRemaining() || entries.hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    /** Replaces the numbers of the term by {@link #PLACEHOLDER} and stores them in {@code numbers}. */
+    static String pattern(final String term, final int[] numbers) {
+        StringBuilder pattern = new StringBuilder(term.length());
+        int count = 0;
+        int i = 0;
+        while (i < term.length()) {
+            char c = term.charAt(i);
+            if (c == PLACEHOLDER) {
+                throw new IllegalArgumentException("Invalid term: %s".formatted(term));
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < term.length() && Character.isDigit(term.charAt(i))) {
+                    i++;
+                }
+                int number = Integer.parseInt(term, start, i, 10);
+                if (count == NUMBERS || number > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid term: %s".formatted(term));
+                }
+                numbers[count++] = number;
+                pattern.append(PLACEHOLDER);
+            } else {
+                pattern.append(c);
+                i++;
+            }
+        }
+        if (count != NUMBERS) {
+            throw new IllegalArgumentException("Invalid term: %s".formatted(term));
+        }
+        return pattern.toString();
+    }
+
+    // ------------------------------------------------------ read
+
+    /** Maps the specified file. Dice or targets outside the table are computed by {@link OperationAlgorithm}. */
+    public static MappedSolutionTable open(final Path path) throws IOException {
+        return open(path, new OperationAlgorithm());
+    }
+
+    /** Maps the specified file. Dice or targets outside the table are computed by the specified algorithm. */
+    public static MappedSolutionTable open(final Path path, final Algorithm fallback) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            // the mapping stays valid after the channel has been closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a solution table: %s".formatted(path));
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported version %d of solution table %s".formatted(buffer.getInt(4), path));
+        }
+        int allowedDifference = buffer.getInt(8);
+        int count = buffer.getInt(12);
+        if (count < 0 || count > Short.MAX_VALUE || HEADER_BYTES + (long) count * Integer.BYTES > buffer.limit()) {
+            throw new IOException("Corrupt solution table %s: invalid number of patterns %d".formatted(path, count));
+        }
+        int bytes = HEADER_BYTES + count * Integer.BYTES;
+        String[] patterns = new String[count];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = buffer.getInt(HEADER_BYTES + i * Integer.BYTES);
+            if (end < start || end > buffer.limit() - bytes) {
+                throw new IOException("Corrupt solution table %s: invalid offset of pattern %d".formatted(path, i));
+            }
+            byte[] pattern = new byte[end - start];
+            buffer.get(bytes + start, pattern);
+            patterns[i] = new String(pattern, StandardCharsets.UTF_8);
+            start = end;
+        }
+        int entries = bytes + start;
+        if (buffer.limit() != entries + SolutionTable.ROLLS * SolutionTable.TARGETS * SLOTS * ENTRY_BYTES) {
+            throw new IOException("Truncated solution table: %s".formatted(path));
+        }
+        return new MappedSolutionTable(path, buffer, entries, patterns, allowedDifference, fallback);
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int entries;
+    private final String[] patterns;
+    private final int allowedDifference;
+    private final Algorithm fallback;
+
+    private MappedSolutionTable(final Path path, final MappedByteBuffer buffer, final int entries, final String[] patterns,
+            final int allowedDifference, final Algorithm fallback) {
+        this.path = path;
+        this.buffer = buffer;
+        this.entries = entries;
+        this.patterns = patterns;
+        this.allowedDifference = allowedDifference;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Solutions compute(final int a, final int b, final int c, final int target) {
+        if (!SolutionTable.inTable(a, b, c, target)) {
+            return fallback.compute(a, b, c, target);
+        }
+        Solutions solutions = new Solutions(target, allowedDifference);
+        int offset = entries + (SolutionTable.rollIndex(a, b, c) * SolutionTable.TARGETS + target - SolutionTable.MIN_TARGET)
+                * SLOTS * ENTRY_BYTES;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int position = offset + slot * ENTRY_BYTES;
+            short pattern = buffer.getShort(position);
+            if (pattern != NO_SOLUTION) {
+                if (pattern < 0 || pattern >= patterns.length) {
+                    throw new IllegalStateException("Corrupt solution table %s: invalid pattern index %d at position %d"
+                            .formatted(path, pattern, position));
+                }
+                solutions.add(new Solution(render(patterns[pattern], position + 4), buffer.getShort(position + 2)));
+            }
+        }
+        return solutions;
+    }
+
+    private String render(final String pattern, final int position) {
+        StringBuilder term = new StringBuilder(pattern.length() + 8);
+        int number = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == PLACEHOLDER) {
+                term.append(buffer.getShort(position + 2 * number++));
+            } else {
+                term.append(c);
+            }
+        }
+        return term.toString();
+    }
+
+    @Override
+    public String name() {
+        return "Solution table mapped from " + path.getFileName();
+    }
+
+    /** Returns the number of distinct term patterns in the dictionary. */
+    int patterns() {
+        return patterns.length;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+/**
+ * Arithmetic operations for three dice values. Each operation evaluates a specific formula without allocating any objects and
+ * returns {@link Formula#INVALID} when a division is not exact. The term of an operation is only rendered on demand.
+ */
+enum Operation {
+
+    ADD("%d + %d + %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return a + b + c;
+        }
+    },
+
+    ADD_DIVIDE_1("(%d + %d) / %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if ((a + b) % c != 0) {
+                return Formula.INVALID;
+            }
+            return (a + b) / c;
+        }
+    },
+
+    ADD_DIVIDE_2("%d / (%d + %d)") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if (a % (b + c) != 0) {
+                return Formula.INVALID;
+            }
+            return a / (b + c);
+        }
+    },
+
+    ADD_MULTIPLY("(%d + %d) * %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return (a + b) * c;
+        }
+    },
+
+    ADD_SUBTRACT("%d + %d - %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return a + b - c;
+        }
+    },
+
+    DIVIDE("%d / %d / %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if (a % b != 0 || (a / b) % c != 0) {
+                return Formula.INVALID;
+            }
+            return a / b / c;
+        }
+    },
+
+    DIVIDE_ADD("%d / %d + %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if (a % b != 0) {
+                return Formula.INVALID;
+            }
+            return a / b + c;
+        }
+    },
+
+    DIVIDE_SUBTRACT_1("%d / %d - %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if (a % b != 0) {
+                return Formula.INVALID;
+            }
+            return a / b - c;
+        }
+    },
+
+    DIVIDE_SUBTRACT_2("%d - %d / %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if (b % c != 0) {
+                return Formula.INVALID;
+            }
+            return a - b / c;
+        }
+    },
+
+    MULTIPLY("%d * %d * %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return a * b * c;
+        }
+    },
+
+    MULTIPLY_ADD("%d * %d + %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return a * b + c;
+        }
+    },
+
+    MULTIPLY_DIVIDE("%d * %d / %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if ((a * b) % c != 0) {
+                return Formula.INVALID;
+            }
+            return a * b / c;
+        }
+    },
+
+    MULTIPLY_SUBTRACT_1("%d * %d - %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return a * b - c;
+        }
+    },
+
+    MULTIPLY_SUBTRACT_2("%d - %d * %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return a - b * c;
+        }
+    },
+
+    SUBTRACT("%d - %d - %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return a - b - c;
+        }
+    },
+
+    SUBTRACT_DIVIDE_1("(%d - %d) / %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if ((a - b) % c != 0) {
+                return Formula.INVALID;
+            }
+            return (a - b) / c;
+        }
+    },
+
+    SUBTRACT_DIVIDE_2("%d / (%d - %d)") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            if (b - c == 0 || a % (b - c) != 0) {
+                return Formula.INVALID;
+            }
+            return a / (b - c);
+        }
+    },
+
+    SUBTRACT_MULTIPLY("(%d - %d) * %d") {
+        @Override
+        int eval(final int a, final int b, final int c) {
+            return (a - b) * c;
+        }
+    };
+
+    private final String pattern;
+
+    Operation(final String pattern) {
+        this.pattern = pattern;
+    }
+
+    /** Evaluates this operation. Returns {@link Formula#INVALID} if a division is not exact. */
+    abstract int eval(int a, int b, int c);
+
+    /** Renders this operation as a term using the specified values. */
+    String term(final int a, final int b, final int c) {
+        return pattern.formatted(a, b, c);
+    }
+}
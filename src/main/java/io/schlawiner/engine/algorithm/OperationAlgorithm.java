@@ -15,156 +15,218 @@
  */
 package io.schlawiner.engine.algorithm;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.schlawiner.engine.algorithm.Operation.ADD;
+import static io.schlawiner.engine.algorithm.Operation.ADD_DIVIDE_1;
+import static io.schlawiner.engine.algorithm.Operation.ADD_DIVIDE_2;
+import static io.schlawiner.engine.algorithm.Operation.ADD_MULTIPLY;
+import static io.schlawiner.engine.algorithm.Operation.ADD_SUBTRACT;
+import static io.schlawiner.engine.algorithm.Operation.DIVIDE;
+import static io.schlawiner.engine.algorithm.Operation.DIVIDE_ADD;
+import static io.schlawiner.engine.algorithm.Operation.DIVIDE_SUBTRACT_1;
+import static io.schlawiner.engine.algorithm.Operation.DIVIDE_SUBTRACT_2;
+import static io.schlawiner.engine.algorithm.Operation.MULTIPLY;
+import static io.schlawiner.engine.algorithm.Operation.MULTIPLY_ADD;
+import static io.schlawiner.engine.algorithm.Operation.MULTIPLY_DIVIDE;
+import static io.schlawiner.engine.algorithm.Operation.MULTIPLY_SUBTRACT_1;
+import static io.schlawiner.engine.algorithm.Operation.MULTIPLY_SUBTRACT_2;
+import static io.schlawiner.engine.algorithm.Operation.SUBTRACT;
+import static io.schlawiner.engine.algorithm.Operation.SUBTRACT_DIVIDE_1;
+import static io.schlawiner.engine.algorithm.Operation.SUBTRACT_DIVIDE_2;
+import static io.schlawiner.engine.algorithm.Operation.SUBTRACT_MULTIPLY;
+import static io.schlawiner.engine.algorithm.Permutation.ABC;
+import static io.schlawiner.engine.algorithm.Permutation.ACB;
+import static io.schlawiner.engine.algorithm.Permutation.BAC;
+import static io.schlawiner.engine.algorithm.Permutation.BCA;
+import static io.schlawiner.engine.algorithm.Permutation.CAB;
+import static io.schlawiner.engine.algorithm.Permutation.CBA;
+
 /**
- * Algorithm that computes solutions using static arithmetic operations in {@link Operations}. Each operation is a hardcoded
+ * Algorithm that computes solutions using static arithmetic operations in {@link Operation}. Each operation is a hardcoded
  * formula applied to the three dice values and their permutations.
+ * <p>
+ * Candidates are evaluated on primitives only. The term of a candidate is rendered when it's requested as the best solution,
+ * so computing solutions doesn't allocate anything but the returned {@link Solutions}. Formulas whose results can't get
+ * closer to the target than the best candidate so far are skipped (see {@link FormulaBounds}).
  */
 public class OperationAlgorithm extends AbstractAlgorithm {
 
+    /**
+     * The formulas in the order they are evaluated. Formulas which don't use {@link Permutation#ABC} are skipped if all values
+     * are the same.
+     */
+    // @formatter:off
+    static final OperationFormula[] FORMULAS = new OperationFormula[] {
+            // a + b + c
+            new OperationFormula(ADD, ABC),
+            // a - b - c
+            new OperationFormula(SUBTRACT, ABC), new OperationFormula(SUBTRACT, BAC), new OperationFormula(SUBTRACT, CAB),
+            // a * b * c
+            new OperationFormula(MULTIPLY, ABC),
+            // a / b / c
+            new OperationFormula(DIVIDE, ABC), new OperationFormula(DIVIDE, BAC), new OperationFormula(DIVIDE, CAB),
+            // a + b - c
+            new OperationFormula(ADD_SUBTRACT, ABC), new OperationFormula(ADD_SUBTRACT, ACB),
+            new OperationFormula(ADD_SUBTRACT, BCA),
+            // a * b / c
+            new OperationFormula(MULTIPLY_DIVIDE, ABC), new OperationFormula(MULTIPLY_DIVIDE, ACB),
+            new OperationFormula(MULTIPLY_DIVIDE, BCA),
+            // a * b + c
+            new OperationFormula(MULTIPLY_ADD, ABC), new OperationFormula(MULTIPLY_ADD, ACB),
+            new OperationFormula(MULTIPLY_ADD, BCA),
+            // (a + b) * c
+            new OperationFormula(ADD_MULTIPLY, ABC), new OperationFormula(ADD_MULTIPLY, ACB),
+            new OperationFormula(ADD_MULTIPLY, BCA),
+            // a * b - c
+            new OperationFormula(MULTIPLY_SUBTRACT_1, ABC), new OperationFormula(MULTIPLY_SUBTRACT_1, ACB),
+            new OperationFormula(MULTIPLY_SUBTRACT_1, BCA),
+            // a - b * c
+            new OperationFormula(MULTIPLY_SUBTRACT_2, ABC), new OperationFormula(MULTIPLY_SUBTRACT_2, BAC),
+            new OperationFormula(MULTIPLY_SUBTRACT_2, CAB),
+            // (a - b) * c
+            new OperationFormula(SUBTRACT_MULTIPLY, ABC), new OperationFormula(SUBTRACT_MULTIPLY, BAC),
+            new OperationFormula(SUBTRACT_MULTIPLY, ACB), new OperationFormula(SUBTRACT_MULTIPLY, CAB),
+            new OperationFormula(SUBTRACT_MULTIPLY, BCA), new OperationFormula(SUBTRACT_MULTIPLY, CBA),
+            // a / b + c
+            new OperationFormula(DIVIDE_ADD, ABC), new OperationFormula(DIVIDE_ADD, BAC),
+            new OperationFormula(DIVIDE_ADD, ACB), new OperationFormula(DIVIDE_ADD, CAB),
+            new OperationFormula(DIVIDE_ADD, BCA), new OperationFormula(DIVIDE_ADD, CBA),
+            // (a + b) / c
+            new OperationFormula(ADD_DIVIDE_1, ABC), new OperationFormula(ADD_DIVIDE_1, ACB),
+            new OperationFormula(ADD_DIVIDE_1, BCA),
+            // a / (b + c)
+            new OperationFormula(ADD_DIVIDE_2, ABC), new OperationFormula(ADD_DIVIDE_2, BAC),
+            new OperationFormula(ADD_DIVIDE_2, CAB),
+            // a / b - c
+            new OperationFormula(DIVIDE_SUBTRACT_1, ABC), new OperationFormula(DIVIDE_SUBTRACT_1, ACB),
+            new OperationFormula(DIVIDE_SUBTRACT_1, BAC), new OperationFormula(DIVIDE_SUBTRACT_1, BCA),
+            new OperationFormula(DIVIDE_SUBTRACT_1, CAB), new OperationFormula(DIVIDE_SUBTRACT_1, CBA),
+            // a - b / c
+            new OperationFormula(DIVIDE_SUBTRACT_2, ABC), new OperationFormula(DIVIDE_SUBTRACT_2, ACB),
+            new OperationFormula(DIVIDE_SUBTRACT_2, BAC), new OperationFormula(DIVIDE_SUBTRACT_2, BCA),
+            new OperationFormula(DIVIDE_SUBTRACT_2, CAB), new OperationFormula(DIVIDE_SUBTRACT_2, CBA),
+            // (a - b) / c
+            new OperationFormula(SUBTRACT_DIVIDE_1, ABC), new OperationFormula(SUBTRACT_DIVIDE_1, ACB),
+            new OperationFormula(SUBTRACT_DIVIDE_1, BAC), new OperationFormula(SUBTRACT_DIVIDE_1, BCA),
+            new OperationFormula(SUBTRACT_DIVIDE_1, CAB), new OperationFormula(SUBTRACT_DIVIDE_1, CBA),
+            // a / (b - c)
+            new OperationFormula(SUBTRACT_DIVIDE_2, ABC), new OperationFormula(SUBTRACT_DIVIDE_2, ACB),
+            new OperationFormula(SUBTRACT_DIVIDE_2, BAC), new OperationFormula(SUBTRACT_DIVIDE_2, BCA),
+            new OperationFormula(SUBTRACT_DIVIDE_2, CAB), new OperationFormula(SUBTRACT_DIVIDE_2, CBA),
+    };
+    // @formatter:on
+
+    /**
+     * The operations ordered by the number of exact hits of their formulas for all dice rolls and targets between 1 and 100
+     * (most first).
+     */
+    // @formatter:off
+    private static final Operation[] OPERATIONS_BY_HITS = new Operation[] {
+            MULTIPLY_DIVIDE, ADD_SUBTRACT, ADD, DIVIDE_ADD, ADD_DIVIDE_1, MULTIPLY_ADD, DIVIDE_SUBTRACT_2,
+            MULTIPLY_SUBTRACT_1, SUBTRACT, DIVIDE_SUBTRACT_1, SUBTRACT_DIVIDE_1, ADD_MULTIPLY, DIVIDE,
+            MULTIPLY_SUBTRACT_2, SUBTRACT_DIVIDE_2, SUBTRACT_MULTIPLY, ADD_DIVIDE_2, MULTIPLY,
+    };
+    // @formatter:on
+
+    /** {@link #FORMULAS} ordered by {@link #OPERATIONS_BY_HITS}. Used in short-circuit mode. */
+    static final OperationFormula[] FORMULAS_BY_HITS = Arrays.stream(FORMULAS)
+            .sorted(Comparator.comparingInt(formula -> List.of(OPERATIONS_BY_HITS).indexOf(formula.operation())))
+            .toArray(OperationFormula[]::new);
+
+    private static final FormulaBounds BOUNDS = new FormulaBounds(FORMULAS);
+    private static final FormulaBounds BOUNDS_BY_HITS = new FormulaBounds(FORMULAS_BY_HITS);
+    static final CanonicalFormulas CANONICAL = new CanonicalFormulas(FORMULAS, abc(FORMULAS), MULTIPLIERS);
+    static final CanonicalFormulas CANONICAL_BY_HITS = new CanonicalFormulas(FORMULAS_BY_HITS, abc(FORMULAS_BY_HITS),
+            MULTIPLIERS_BY_HITS);
+    private static final int[] ALL_FORMULAS = IntStream.range(0, FORMULAS.length).toArray();
+    private static final int ABC_FORMULAS = (int) Arrays.stream(FORMULAS).filter(f -> f.permutation() == ABC).count();
+    private static final int NO_ROW = -1;
+
     public OperationAlgorithm() {
         super("Algorithm based on static operations");
     }
 
+    /**
+     * Creates an algorithm which optionally stops as soon as an exact solution is found. In this mode, the multiplier
+     * combinations and formulas which hit most targets are evaluated first. The difference of the best solution is the same as
+     * with the exhaustive enumeration, but the term might be a different one.
+     */
+    public OperationAlgorithm(final boolean shortCircuit) {
+        super(shortCircuit ? "Algorithm based on static operations with early exit" : "Algorithm based on static operations",
+                DEFAULT_DIFFERENCE, shortCircuit);
+    }
+
     OperationAlgorithm(final int allowedDifference) {
         super("Algorithm based on static operations", allowedDifference);
     }
 
+    /**
+     * Evaluates the {@link CanonicalFormulas} only (unless the candidates aren't {@linkplain Candidates#canonical()
+     * canonical}) and skips formulas which can't produce an accepted result if all dice
+     * numbers are covered by {@link FormulaBounds}. The number of skipped formulas is reported to the candidates.
+     */
     @Override
-    protected void computePermutation(final int a, final int b, final int c, final int target, final Solutions solutions) {
-        // a + b + c
-        solutions.add(Operations.add(a, b, c));
-
-        // a - b - c
-        solutions.add(Operations.subtract(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.subtract(b, a, c));
-            solutions.add(Operations.subtract(c, a, b));
-        }
-
-        // a * b * c
-        solutions.add(Operations.multiply(a, b, c));
-
-        // a / b / c
-        solutions.add(Operations.divide(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.divide(b, a, c));
-            solutions.add(Operations.divide(c, a, b));
-        }
-
-        // a + b - c
-        solutions.add(Operations.addSubtract(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.addSubtract(a, c, b));
-            solutions.add(Operations.addSubtract(b, c, a));
-        }
-
-        // a * b / c
-        solutions.add(Operations.multiplyDivide(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.multiplyDivide(a, c, b));
-            solutions.add(Operations.multiplyDivide(b, c, a));
-        }
-
-        // a * b + c
-        solutions.add(Operations.multiplyAdd(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.multiplyAdd(a, c, b));
-            solutions.add(Operations.multiplyAdd(b, c, a));
-        }
-
-        // (a + b) * c
-        solutions.add(Operations.addMultiply(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.addMultiply(a, c, b));
-            solutions.add(Operations.addMultiply(b, c, a));
-        }
-
-        // a * b - c
-        solutions.add(Operations.multiplySubtract1(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.multiplySubtract1(a, c, b));
-            solutions.add(Operations.multiplySubtract1(b, c, a));
-        }
-
-        // a - b * c
-        solutions.add(Operations.multiplySubtract2(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.multiplySubtract2(b, a, c));
-            solutions.add(Operations.multiplySubtract2(c, a, b));
-        }
-
-        // (a - b) * c
-        solutions.add(Operations.subtractMultiply(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.subtractMultiply(b, a, c));
-            solutions.add(Operations.subtractMultiply(a, c, b));
-            solutions.add(Operations.subtractMultiply(c, a, b));
-            solutions.add(Operations.subtractMultiply(b, c, a));
-            solutions.add(Operations.subtractMultiply(c, b, a));
-        }
-
-        // a / b + c
-        solutions.add(Operations.divideAdd(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.divideAdd(b, a, c));
-            solutions.add(Operations.divideAdd(a, c, b));
-            solutions.add(Operations.divideAdd(c, a, b));
-            solutions.add(Operations.divideAdd(b, c, a));
-            solutions.add(Operations.divideAdd(c, b, a));
-        }
-
-        // (a + b) / c
-        solutions.add(Operations.addDivide1(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.addDivide1(a, c, b));
-            solutions.add(Operations.addDivide1(b, c, a));
-        }
-
-        // a / (b + c)
-        solutions.add(Operations.addDivide2(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.addDivide2(b, a, c));
-            solutions.add(Operations.addDivide2(c, a, b));
-        }
-
-        // a / b - c
-        solutions.add(Operations.divideSubtract1(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.divideSubtract1(a, c, b));
-            solutions.add(Operations.divideSubtract1(b, a, c));
-            solutions.add(Operations.divideSubtract1(b, c, a));
-            solutions.add(Operations.divideSubtract1(c, a, b));
-            solutions.add(Operations.divideSubtract1(c, b, a));
+    protected void computeRow(final int a, final int b, final int c, final int[] multiplier, final Candidates candidates) {
+        int row = FormulaBounds.row(multiplier);
+        if (row != NO_ROW && FormulaBounds.dice(a, b, c)) {
+            evaluate(a * multiplier[0], b * multiplier[1], c * multiplier[2], row, candidates);
+        } else {
+            super.computeRow(a, b, c, multiplier, candidates);
         }
+    }
 
-        // a - b / c
-        solutions.add(Operations.divideSubtract2(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.divideSubtract2(a, c, b));
-            solutions.add(Operations.divideSubtract2(b, a, c));
-            solutions.add(Operations.divideSubtract2(b, c, a));
-            solutions.add(Operations.divideSubtract2(c, a, b));
-            solutions.add(Operations.divideSubtract2(c, b, a));
-        }
+    @Override
+    protected void computePermutation(final int a, final int b, final int c, final Candidates candidates) {
+        evaluate(a, b, c, NO_ROW, candidates);
+    }
 
-        // (a - b) / c
-        solutions.add(Operations.subtractDivide1(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.subtractDivide1(a, c, b));
-            solutions.add(Operations.subtractDivide1(b, a, c));
-            solutions.add(Operations.subtractDivide1(b, c, a));
-            solutions.add(Operations.subtractDivide1(c, a, b));
-            solutions.add(Operations.subtractDivide1(c, b, a));
+    private void evaluate(final int a, final int b, final int c, final int row, final Candidates candidates) {
+        // the candidates decide the order of the multiplier combinations, see AbstractAlgorithm.enumerate()
+        boolean shortCircuit = candidates.shortCircuit();
+        FormulaBounds bounds = shortCircuit ? BOUNDS_BY_HITS : BOUNDS;
+        OperationFormula[] formulas = bounds.formulas();
+        boolean permutations = differentDiceNumbers(a, b, c);
+        int[] indices = ALL_FORMULAS;
+        if (row != NO_ROW) {
+            CanonicalFormulas canonical = shortCircuit ? CANONICAL_BY_HITS : CANONICAL;
+            if (!candidates.accepts(bounds.rowMin(row), bounds.rowMax(row))) {
+                candidates.prune(candidates.canonical() ? canonical.count(row, permutations)
+                        : permutations ? FORMULAS.length : ABC_FORMULAS);
+                return;
+            }
+            if (candidates.canonical()) {
+                indices = canonical.formulas(row);
+            }
+        }
+
+        int pruned = 0;
+        for (int i : indices) {
+            OperationFormula formula = formulas[i];
+            if (permutations || formula.permutation() == ABC) {
+                if (row != NO_ROW && !candidates.accepts(bounds.min(row, i), bounds.max(row, i))) {
+                    pruned++;
+                    continue;
+                }
+                candidates.add(formula, a, b, c, formula.eval(a, b, c));
+                if (shortCircuit && candidates.complete()) {
+                    break;
+                }
+            }
+        }
+        if (pruned != 0) {
+            candidates.prune(pruned);
         }
+    }
 
-        // a / (b - c)
-        solutions.add(Operations.subtractDivide2(a, b, c));
-        if (differentDiceNumbers(a, b, c)) {
-            solutions.add(Operations.subtractDivide2(a, c, b));
-            solutions.add(Operations.subtractDivide2(b, a, c));
-            solutions.add(Operations.subtractDivide2(b, c, a));
-            solutions.add(Operations.subtractDivide2(c, a, b));
-            solutions.add(Operations.subtractDivide2(c, b, a));
+    private static boolean[] abc(final OperationFormula[] formulas) {
+        boolean[] abc = new boolean[formulas.length];
+        for (int i = 0; i < formulas.length; i++) {
+            abc[i] = formulas[i].permutation() == ABC;
         }
+        return abc;
     }
 }
@@ -0,0 +1,30 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+/** An {@link Operation} applied to a {@link Permutation} of the dice values. */
+record OperationFormula(Operation operation, Permutation permutation) implements Formula {
+
+    @Override
+    public int eval(final int a, final int b, final int c) {
+        return operation.eval(permutation.x(a, b, c), permutation.y(a, b, c), permutation.z(a, b, c));
+    }
+
+    @Override
+    public String term(final int a, final int b, final int c) {
+        return operation.term(permutation.x(a, b, c), permutation.y(a, b, c), permutation.z(a, b, c));
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+/** Order in which three dice values are passed to an {@link Operation}. */
+enum Permutation {
+
+    ABC(0, 1, 2), ACB(0, 2, 1), BAC(1, 0, 2), BCA(1, 2, 0), CAB(2, 0, 1), CBA(2, 1, 0);
+
+    private final int x;
+    private final int y;
+    private final int z;
+
+    Permutation(final int x, final int y, final int z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    int x(final int a, final int b, final int c) {
+        return pick(x, a, b, c);
+    }
+
+    int y(final int a, final int b, final int c) {
+        return pick(y, a, b, c);
+    }
+
+    int z(final int a, final int b, final int c) {
+        return pick(z, a, b, c);
+    }
+
+    private static int pick(final int index, final int a, final int b, final int c) {
+        return switch (index) {
+            case 0 -> a;
+            case 1 -> b;
+            default -> c;
+        };
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Index of the values which can be reached exactly with the formulas of {@link OperationAlgorithm}. The index holds a bitset
+ * for each of the {@value SolutionTable#ROLLS} sorted dice rolls. The bitsets cover the targets between
+ * {@value SolutionTable#MIN_TARGET} and {@value SolutionTable#MAX_TARGET} plus the default allowed difference on both sides,
+ * so that the distance to the nearest reachable value is known for every target up to the default allowed difference.
+ * <p>
+ * Unlike {@link SolutionTable} the index doesn't keep any terms. It's meant for questions like "is this target reachable"
+ * or "which targets can be reached by most rolls". Queries across rolls are bitwise operations on the bitsets. Fractions of
+ * rolls are weighted by the number of ordered rolls of each sorted roll, i.e. they're the probability of a random roll.
+ * Instances are immutable and thread-safe.
+ */
+public final class Reachability {
+
+    /** Returned by {@link #distance(int, int, int, int)} if no value is within the default allowed difference. */
+    public static final int UNREACHABLE = -1;
+
+    static final int MIN_VALUE = SolutionTable.MIN_TARGET - AbstractAlgorithm.DEFAULT_DIFFERENCE;
+    static final int MAX_VALUE = SolutionTable.MAX_TARGET + AbstractAlgorithm.DEFAULT_DIFFERENCE;
+    static final int WORDS = (MAX_VALUE - MIN_VALUE + Long.SIZE) / Long.SIZE;
+
+    /** Number of ordered rolls of three dice. */
+    static final int ORDERED_ROLLS = SolutionTable.MAX_DICE * SolutionTable.MAX_DICE * SolutionTable.MAX_DICE;
+
+    /** Number of ordered rolls per sorted roll: 1, 3 or 6. */
+    private static final int[] MULTIPLICITY = new int[SolutionTable.ROLLS];
+
+    static {
+        for (int a = SolutionTable.MIN_DICE; a <= SolutionTable.MAX_DICE; a++) {
+            for (int b = SolutionTable.MIN_DICE; b <= SolutionTable.MAX_DICE; b++) {
+                for (int c = SolutionTable.MIN_DICE; c <= SolutionTable.MAX_DICE; c++) {
+                    MULTIPLICITY[SolutionTable.rollIndex(a, b, c)]++;
+                }
+            }
+        }
+    }
+
+    private final long[] reachable;
+    private final byte[] distances;
+    private final int[] rolls;
+
+    /** Creates the index based on {@link OperationAlgorithm}. */
+    public Reachability() {
+        this(new OperationAlgorithm());
+    }
+
+    /** Creates the index based on the formulas of the specified algorithm. Building the index enumerates all rolls once. */
+    Reachability(final AbstractAlgorithm algorithm) {
+        this.reachable = new long[SolutionTable.ROLLS * WORDS];
+        this.distances = new byte[SolutionTable.ROLLS * SolutionTable.TARGETS];
+        this.rolls = new int[MAX_VALUE - MIN_VALUE + 1];
+        for (int a = SolutionTable.MIN_DICE; a <= SolutionTable.MAX_DICE; a++) {
+            for (int b = a; b <= SolutionTable.MAX_DICE; b++) {
+                for (int c = b; c <= SolutionTable.MAX_DICE; c++) {
+                    int roll = SolutionTable.rollIndex(a, b, c);
+                    Values values = new Values(reachable, roll * WORDS);
+                    for (int[] multiplier : AbstractAlgorithm.MULTIPLIERS) {
+                        algorithm.computeRow(a, b, c, multiplier, values);
+                    }
+                    index(roll);
+                }
+            }
+        }
+    }
+
+    private void index(final int roll) {
+        int offset = roll * WORDS;
+        for (int value = MIN_VALUE; value <= MAX_VALUE; value++) {
+            if (bit(reachable, offset, value)) {
+                rolls[value - MIN_VALUE] += MULTIPLICITY[roll];
+            }
+        }
+        for (int target = SolutionTable.MIN_TARGET; target <= SolutionTable.MAX_TARGET; target++) {
+            int distance = UNREACHABLE;
+            for (int d = 0; d <= AbstractAlgorithm.DEFAULT_DIFFERENCE; d++) {
+                if (bit(reachable, offset, target - d) || bit(reachable, offset, target + d)) {
+                    distance = d;
+                    break;
+                }
+            }
+            distances[roll * SolutionTable.TARGETS + target - SolutionTable.MIN_TARGET] = (byte) distance;
+        }
+    }
+
+    // ------------------------------------------------------ single roll
+
+    /** Returns whether the target can be reached exactly with the dice {@code a}, {@code b}, {@code c}. */
+    public boolean exact(final int a, final int b, final int c, final int target) {
+        checkRoll(a, b, c);
+        checkTarget(target);
+        return bit(reachable, SolutionTable.rollIndex(a, b, c) * WORDS, target);
+    }
+
+    /**
+     * Returns the distance between the target and the nearest value which can be reached with the dice {@code a}, {@code b},
+     * {@code c}, or {@link #UNREACHABLE} if it's greater than the default allowed difference.
+     */
+    public int distance(final int a, final int b, final int c, final int target) {
+        checkRoll(a, b, c);
+        checkTarget(target);
+        return distances[SolutionTable.rollIndex(a, b, c) * SolutionTable.TARGETS + target - SolutionTable.MIN_TARGET];
+    }
+
+    /** Returns the targets which can be reached exactly with the dice {@code a}, {@code b}, {@code c}. */
+    public BitSet targets(final int a, final int b, final int c) {
+        checkRoll(a, b, c);
+        long[] words = new long[WORDS];
+        System.arraycopy(reachable, SolutionTable.rollIndex(a, b, c) * WORDS, words, 0, WORDS);
+        return targets(words);
+    }
+
+    /**
+     * Returns the targets which can be reached with the dice {@code a}, {@code b}, {@code c} within the specified
+     * difference.
+     */
+    public BitSet targets(final int a, final int b, final int c, final int difference) {
+        checkRoll(a, b, c);
+        checkDifference(difference);
+        long[] words = new long[WORDS];
+        System.arraycopy(reachable, SolutionTable.rollIndex(a, b, c) * WORDS, words, 0, WORDS);
+        return targets(widen(words, difference));
+    }
+
+    // ------------------------------------------------------ all rolls
+
+    /** Returns the targets which can be reached exactly by every roll. */
+    public BitSet targetsOfAllRolls() {
+        long[] words = new long[WORDS];
+        Arrays.fill(words, -1L);
+        for (int roll = 0; roll < SolutionTable.ROLLS; roll++) {
+            for (int w = 0; w < WORDS; w++) {
+                words[w] &= reachable[roll * WORDS + w];
+            }
+        }
+        return targets(words);
+    }
+
+    /** Returns the targets which can be reached exactly by at least one roll. */
+    public BitSet targetsOfAnyRoll() {
+        long[] words = new long[WORDS];
+        for (int roll = 0; roll < SolutionTable.ROLLS; roll++) {
+            for (int w = 0; w < WORDS; w++) {
+                words[w] |= reachable[roll * WORDS + w];
+            }
+        }
+        return targets(words);
+    }
+
+    /** Returns the targets which can be reached exactly by at least the specified fraction of all rolls. */
+    public BitSet targets(final double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Fraction out of range: %s".formatted(fraction));
+        }
+        BitSet targets = new BitSet();
+        for (int target = SolutionTable.MIN_TARGET; target <= SolutionTable.MAX_TARGET; target++) {
+            if (rolls[target - MIN_VALUE] >= fraction * ORDERED_ROLLS) {
+                targets.set(target);
+            }
+        }
+        return targets;
+    }
+
+    /** Returns the fraction of all rolls which can reach the target exactly. */
+    public double fraction(final int target) {
+        checkTarget(target);
+        return (double) rolls[target - MIN_VALUE] / ORDERED_ROLLS;
+    }
+
+    /** Returns the fraction of all rolls which can reach the target within the specified difference. */
+    public double fraction(final int target, final int difference) {
+        checkTarget(target);
+        checkDifference(difference);
+        int count = 0;
+        for (int roll = 0; roll < SolutionTable.ROLLS; roll++) {
+            int distance = distances[roll * SolutionTable.TARGETS + target - SolutionTable.MIN_TARGET];
+            if (distance != UNREACHABLE && distance <= difference) {
+                count += MULTIPLICITY[roll];
+            }
+        }
+        return (double) count / ORDERED_ROLLS;
+    }
+
+    // ------------------------------------------------------ bits
+
+    private static boolean bit(final long[] words, final int offset, final int value) {
+        int bit = value - MIN_VALUE;
+        return (words[offset + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /** Sets all bits which are within {@code difference} of a set bit. */
+    private static long[] widen(final long[] words, final int difference) {
+        long[] widened = words.clone();
+        for (int shift = 1; shift <= difference; shift++) {
+            for (int w = 0; w < WORDS; w++) {
+                long lower = w > 0 ? words[w - 1] >>> (Long.SIZE - shift) : 0;
+                long upper = w < WORDS - 1 ? words[w + 1] << (Long.SIZE - shift) : 0;
+                widened[w] |= words[w] << shift | lower | words[w] >>> shift | upper;
+            }
+        }
+        return widened;
+    }
+
+    /** Converts words indexed by value to a bitset indexed by target. */
+    private static BitSet targets(final long[] words) {
+        BitSet values = BitSet.valueOf(words);
+        BitSet targets = new BitSet();
+        for (int target = SolutionTable.MIN_TARGET; target <= SolutionTable.MAX_TARGET; target++) {
+            if (values.get(target - MIN_VALUE)) {
+                targets.set(target);
+            }
+        }
+        return targets;
+    }
+
+    private static void checkRoll(final int a, final int b, final int c) {
+        if (!SolutionTable.inTable(a, b, c, SolutionTable.MIN_TARGET)) {
+            throw new IllegalArgumentException("Invalid dice: %d, %d, %d".formatted(a, b, c));
+        }
+    }
+
+    private static void checkTarget(final int target) {
+        if (target < SolutionTable.MIN_TARGET || target > SolutionTable.MAX_TARGET) {
+            throw new IllegalArgumentException("Target out of range: %d".formatted(target));
+        }
+    }
+
+    private static void checkDifference(final int difference) {
+        if (difference < 0 || difference > AbstractAlgorithm.DEFAULT_DIFFERENCE) {
+            throw new IllegalArgumentException("Difference out of range: %d".formatted(difference));
+        }
+    }
+
+    /** Sets the bits of the values within the index. */
+    private record Values(long[] words, int offset) implements Candidates {
+
+        @Override
+        public void add(final Formula formula, final int a, final int b, final int c, final int result) {
+            if (result >= MIN_VALUE && result <= MAX_VALUE) {
+                int bit = result - MIN_VALUE;
+                words[offset + (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        @Override
+        public boolean accepts(final int min, final int max) {
+            return max >= MIN_VALUE && min <= MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import static java.lang.Math.abs;
+
+/**
+ * Spliterator over all distinct solutions of an {@link AbstractAlgorithm}. The candidates of one multiplier combination are
+ * enumerated into a buffer when the previous one has been consumed. Terms are rendered when a candidate is emitted, and
+ * solutions with a term which has been emitted before are skipped.
+ */
+class SolutionSpliterator extends Spliterators.AbstractSpliterator<Solution> {
+
+    private final AbstractAlgorithm algorithm;
+    private final int a;
+    private final int b;
+    private final int c;
+    private final Buffer buffer;
+    private final Set<String> terms;
+    private int row;
+    private int position;
+
+    SolutionSpliterator(final AbstractAlgorithm algorithm, final int a, final int b, final int c, final int target,
+            final int allowedDifference) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        this.algorithm = algorithm;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.buffer = new Buffer(target, allowedDifference);
+        this.terms = new HashSet<>();
+        this.row = 0;
+        this.position = 0;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Solution> action) {
+        while (true) {
+            while (position < buffer.size) {
+                int index = position++;
+                String term = buffer.formulas[index].term(buffer.values[4 * index], buffer.values[4 * index + 1],
+                        buffer.values[4 * index + 2]);
+                if (terms.add(term)) {
+                    action.accept(new Solution(term, buffer.values[4 * index + 3]));
+                    return true;
+                }
+            }
+            if (row == AbstractAlgorithm.MULTIPLIERS.length) {
+                return false;
+            }
+            buffer.size = 0;
+            position = 0;
+            algorithm.computeRow(a, b, c, AbstractAlgorithm.MULTIPLIERS[row++], buffer);
+        }
+    }
+
+    /** Collects the valid candidates of one multiplier combination. */
+    private static final class Buffer implements Candidates {
+
+        private final int target;
+        private final int allowedDifference;
+        private Formula[] formulas;
+        private int[] values;
+        private int size;
+
+        Buffer(final int target, final int allowedDifference) {
+            this.target = target;
+            this.allowedDifference = allowedDifference;
+            this.formulas = new Formula[16];
+            this.values = new int[4 * formulas.length];
+            this.size = 0;
+        }
+
+        @Override
+        public void add(final Formula formula, final int a, final int b, final int c, final int result) {
+            if (result != Formula.INVALID && abs(result - target) <= allowedDifference) {
+                if (size == formulas.length) {
+                    formulas = Arrays.copyOf(formulas, 2 * size);
+                    values = Arrays.copyOf(values, 8 * size);
+                }
+                formulas[size] = formula;
+                values[4 * size] = a;
+                values[4 * size + 1] = b;
+                values[4 * size + 2] = c;
+                values[4 * size + 3] = result;
+                size++;
+            }
+        }
+
+        /** The stream covers every valid candidate, not only the first one per result. */
+        @Override
+        public boolean canonical() {
+            return false;
+        }
+
+        @Override
+        public boolean accepts(final int min, final int max) {
+            return max >= target - allowedDifference && min <= target + allowedDifference;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.stream.Stream;
+
+/**
+ * Algorithm backed by a table which holds the solutions for every dice roll and every target between {@value #MIN_TARGET} and
+ * {@value #MAX_TARGET}. The table is built once using {@link Algorithm#computeAll(int, int, int, int, int)} of the wrapped
+ * algorithm. Afterwards {@link #compute(int, int, int, int)} is a plain array lookup.
+ * <p>
+ * The dice are sorted before the lookup. The returned {@link Solutions} are shared between all callers and
+ * {@linkplain Solutions#frozen() frozen}. Dice or targets outside the table are delegated to the wrapped algorithm.
+ */
+public class SolutionTable implements Algorithm {
+
+    static final int MIN_DICE = 1;
+    static final int MAX_DICE = 6;
+    static final int MIN_TARGET = 1;
+    static final int MAX_TARGET = 100;
+    static final int TARGETS = MAX_TARGET - MIN_TARGET + 1;
+
+    /** Number of distinct dice rolls if the order of the dice is ignored. */
+    static final int ROLLS = 56;
+
+    /** Maps an ordered roll to the index of its sorted roll. */
+    private static final int[] ROLL_INDEX = new int[MAX_DICE * MAX_DICE * MAX_DICE];
+
+    static {
+        int index = 0;
+        int[][] sorted = new int[MAX_DICE + 1][MAX_DICE + 1];
+        for (int a = MIN_DICE; a <= MAX_DICE; a++) {
+            for (int b = a; b <= MAX_DICE; b++) {
+                sorted[a][b] = index;
+                index += MAX_DICE - b + 1;
+            }
+        }
+        for (int a = MIN_DICE; a <= MAX_DICE; a++) {
+            for (int b = MIN_DICE; b <= MAX_DICE; b++) {
+                for (int c = MIN_DICE; c <= MAX_DICE; c++) {
+                    int min = Math.min(a, Math.min(b, c));
+                    int max = Math.max(a, Math.max(b, c));
+                    int mid = a + b + c - min - max;
+                    ROLL_INDEX[ordered(a, b, c)] = sorted[min][mid] + max - mid;
+                }
+            }
+        }
+    }
+
+    private final Algorithm algorithm;
+    private final Solutions[] solutions;
+
+    /** Creates a table based on {@link OperationAlgorithm}. */
+    public SolutionTable() {
+        this(new OperationAlgorithm());
+    }
+
+    /** Creates a table based on the specified algorithm. Building the table computes all rolls and targets. */
+    public SolutionTable(final Algorithm algorithm) {
+        this.algorithm = algorithm;
+        this.solutions = new Solutions[ROLLS * TARGETS];
+        for (int a = MIN_DICE; a <= MAX_DICE; a++) {
+            for (int b = a; b <= MAX_DICE; b++) {
+                for (int c = b; c <= MAX_DICE; c++) {
+                    Solutions[] all = algorithm.computeAll(a, b, c, MIN_TARGET, MAX_TARGET);
+                    for (Solutions target : all) {
+                        target.freeze();
+                    }
+                    System.arraycopy(all, 0, solutions, index(a, b, c, MIN_TARGET), TARGETS);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Solutions compute(final int a, final int b, final int c, final int target) {
+        if (inTable(a, b, c, target)) {
+            return solutions[index(a, b, c, target)];
+        }
+        return algorithm.compute(a, b, c, target);
+    }
+
+    /** Solution streams are not part of the table and are delegated to the wrapped algorithm. */
+    @Override
+    public Stream<Solution> solutions(final int a, final int b, final int c, final int target) {
+        return algorithm.solutions(a, b, c, target);
+    }
+
+    @Override
+    public String name() {
+        return "Solution table based on " + algorithm.name();
+    }
+
+    static boolean inTable(final int a, final int b, final int c, final int target) {
+        return dice(a) && dice(b) && dice(c) && target >= MIN_TARGET && target <= MAX_TARGET;
+    }
+
+    /** Returns the index of the sorted roll of {@code a}, {@code b}, {@code c}. All values must be valid dice numbers. */
+    static int rollIndex(final int a, final int b, final int c) {
+        return ROLL_INDEX[ordered(a, b, c)];
+    }
+
+    private static int index(final int a, final int b, final int c, final int target) {
+        return rollIndex(a, b, c) * TARGETS + target - MIN_TARGET;
+    }
+
+    private static int ordered(final int a, final int b, final int c) {
+        return ((a - MIN_DICE) * MAX_DICE + b - MIN_DICE) * MAX_DICE + c - MIN_DICE;
+    }
+
+    private static boolean dice(final int value) {
+        return value >= MIN_DICE && value <= MAX_DICE;
+    }
+}
@@ -19,46 +19,232 @@ import io.schlawiner.engine.game.Level;
 
 import static java.lang.Math.abs;
 
-/** Collects solutions from an algorithm run and tracks the best one (closest to the target number). */
-public class Solutions {
+/**
+ * Collects solutions from an algorithm run. Candidates are bucketed by their difference to the target: for each difference
+ * within the allowed difference, the first candidate is kept. The best solution is the one in the bucket with the smallest
+ * difference. {@link #bestSolution(Level)} picks a worse bucket depending on the level, without computing anything again.
+ * <p>
+ * Candidates added by an algorithm are kept as formula and values. The term of a candidate is rendered when it's requested as
+ * solution.
+ * <p>
+ * Solutions which are shared, e.g. by {@link CachingAlgorithm} or {@link SolutionTable}, are {@linkplain #frozen() frozen}.
+ * Frozen solutions can be read by several threads at once: rendering a term only caches the immutable {@link Solution}.
+ */
+public class Solutions implements Candidates {
+
+    private static final int NONE = -1;
+
+    /** The maximum difference between the best solution and the solution of any level. */
+    static final int LEVEL_SPREAD = maxLevelDifference();
 
     private final int target;
     private final int allowedDifference;
-    private Solution bestSolution;
+    private final boolean shortCircuit;
+
+    // buckets indexed by difference: formula, values (a, b, c, result) and rendered or added solution
+    private final Formula[] formulas;
+    private final int[] values;
+    private final Solution[] solutions;
+    private long filled;
+    private int bestDifference;
+    private int pruned;
+    private boolean frozen;
 
     public Solutions(final int target, final int allowedDifference) {
+        this(target, allowedDifference, false);
+    }
+
+    /**
+     * Creates solutions which optionally signal the algorithm to stop the enumeration once an exact solution has been added.
+     *
+     * @see #complete()
+     */
+    public Solutions(final int target, final int allowedDifference, final boolean shortCircuit) {
         this.target = target;
         this.allowedDifference = allowedDifference;
-        this.bestSolution = null;
+        this.shortCircuit = shortCircuit;
+        this.formulas = new Formula[allowedDifference + 1];
+        this.values = new int[4 * (allowedDifference + 1)];
+        this.solutions = new Solution[allowedDifference + 1];
+        this.filled = 0;
+        this.bestDifference = NONE;
     }
 
     /**
-     * Adds a solution if its result is within the allowed difference from the target. Updates the best solution if this one is
-     * closer.
+     * Adds a solution if its result is within the allowed difference from the target and no solution with the same difference
+     * has been added before.
      */
     public void add(final Solution solution) {
-        if (solution.result() >= target - allowedDifference && solution.result() <= target + allowedDifference) {
-            if (bestSolution == null) {
-                bestSolution = solution;
-            } else {
-                if (abs(solution.result() - target) < abs(bestSolution.result() - target)) {
-                    bestSolution = solution;
-                }
+        checkFrozen();
+        int difference = bucket(solution.result());
+        if (difference != NONE) {
+            fill(difference);
+            solutions[difference] = solution;
+        }
+    }
+
+    /** Same as {@link #add(Solution)}, but the term is only rendered if the candidate is requested as solution. */
+    @Override
+    public void add(final Formula formula, final int a, final int b, final int c, final int result) {
+        checkFrozen();
+        int difference = bucket(result);
+        if (difference != NONE) {
+            fill(difference);
+            formulas[difference] = formula;
+            values[4 * difference] = a;
+            values[4 * difference + 1] = b;
+            values[4 * difference + 2] = c;
+            values[4 * difference + 3] = result;
+        }
+    }
+
+    /** Returns the difference of the result if it's within the allowed difference and its bucket is empty. */
+    private int bucket(final int result) {
+        if (result >= target - allowedDifference && result <= target + allowedDifference) {
+            int difference = abs(result - target);
+            if (!filled(difference)) {
+                return difference;
             }
         }
+        return NONE;
+    }
+
+    private void fill(final int difference) {
+        if (difference < Long.SIZE) {
+            filled |= 1L << difference;
+        }
+        if (bestDifference == NONE || difference < bestDifference) {
+            bestDifference = difference;
+        }
+    }
+
+    private boolean filled(final int difference) {
+        if (difference < Long.SIZE) {
+            return (filled & (1L << difference)) != 0;
+        }
+        return formulas[difference] != null || solutions[difference] != null;
+    }
+
+    /**
+     * Accepts results which would go into an empty bucket, which might be picked by {@link #bestSolution(Level)}. Buckets
+     * with a difference greater than the best difference so far plus the spread of all levels are never picked.
+     */
+    @Override
+    public boolean accepts(final int min, final int max) {
+        int window = bestDifference == NONE ? allowedDifference
+                : Math.min(allowedDifference, bestDifference + LEVEL_SPREAD);
+        int lower = Math.max(min, target - window);
+        int upper = Math.min(max, target + window);
+        if (lower > upper) {
+            return false;
+        }
+        if (window >= Long.SIZE) {
+            return true;
+        }
+        int near = lower > target ? lower - target : upper < target ? target - upper : 0;
+        int far = Math.max(target - lower, upper - target);
+        long differences = (-1L >>> (Long.SIZE - 1 - far)) & (-1L << near);
+        return (differences & ~filled) != 0;
+    }
+
+    @Override
+    public void prune(final int count) {
+        checkFrozen();
+        pruned += count;
+    }
+
+    /** Returns the number of candidates the algorithm skipped, because their results could not be picked. */
+    public int pruned() {
+        return pruned;
+    }
+
+    /**
+     * Returns whether these solutions are frozen. Frozen solutions can't be modified, {@link #add(Solution)} and the other
+     * methods which add candidates throw an {@link UnsupportedOperationException}.
+     */
+    public boolean frozen() {
+        return frozen;
+    }
+
+    /** Freezes these solutions before they are shared. Returns this instance. */
+    Solutions freeze() {
+        frozen = true;
+        return this;
+    }
+
+    private void checkFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /** Returns the maximum difference between the target and the result of a solution. */
+    int allowedDifference() {
+        return allowedDifference;
+    }
+
+    /** Returns {@code true} if the best solution hits the target, so no better solution can exist. */
+    public boolean exact() {
+        return bestDifference == 0;
+    }
+
+    @Override
+    public boolean shortCircuit() {
+        return shortCircuit;
+    }
+
+    /**
+     * Returns {@code true} in short-circuit mode once an {@linkplain #exact() exact} solution has been added. Buckets which
+     * are not filled by then are not available for {@link #bestSolution(Level)}.
+     */
+    @Override
+    public boolean complete() {
+        return shortCircuit && exact();
     }
 
     /** Returns the best solution found, or {@code null} if no valid solution exists. */
     public Solution bestSolution() {
-        return bestSolution;
+        return bestDifference == NONE ? null : render(bestDifference);
     }
 
     /**
-     * Returns a solution appropriate for the given difficulty level. Currently delegates to {@link #bestSolution()} (not yet
-     * level-aware).
+     * Returns a solution appropriate for the given difficulty level: the solution whose difference to the target is
+     * {@link Level#maxDifference()} worse than the best one. If there's no such solution, the next better one is returned.
+     * Returns {@code null} if no valid solution exists.
      */
     public Solution bestSolution(final Level level) {
-        // TODO Choose bestSolution based on level
-        return bestSolution();
+        if (bestDifference == NONE) {
+            return null;
+        }
+        int difference = Math.min(bestDifference + level.maxDifference(), allowedDifference);
+        while (!filled(difference)) {
+            difference--;
+        }
+        return render(difference);
+    }
+
+    /** Returns the solution with the specified difference to the target, or {@code null} if there's no such solution. */
+    Solution solution(final int difference) {
+        if (difference < 0 || difference > allowedDifference || !filled(difference)) {
+            return null;
+        }
+        return render(difference);
+    }
+
+    private Solution render(final int difference) {
+        if (solutions[difference] == null) {
+            Formula formula = formulas[difference];
+            solutions[difference] = new Solution(formula.term(values[4 * difference], values[4 * difference + 1],
+                    values[4 * difference + 2]), values[4 * difference + 3]);
+        }
+        return solutions[difference];
+    }
+
+    private static int maxLevelDifference() {
+        int max = 0;
+        for (Level level : Level.values()) {
+            max = Math.max(max, level.maxDifference());
+        }
+        return max;
     }
 }
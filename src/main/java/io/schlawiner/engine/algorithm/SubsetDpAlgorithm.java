@@ -0,0 +1,360 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import io.schlawiner.engine.util.BoundedCache;
+
+import static java.lang.Math.abs;
+
+/**
+ * Algorithm for any number of dice based on dynamic programming over the subsets of the dice. For every subset, the algorithm
+ * computes all values which can be reached by combining two disjoint subsets with {@code +}, {@code -}, {@code *} and exact
+ * {@code /}. A single die reaches its value times each multiplier. For every value, the first expression which reaches it is
+ * kept as witness and rendered as term when it's used as solution. Intermediate values must fit into an {@code int}, values
+ * with a greater magnitude are dropped.
+ * <p>
+ * Unlike {@link OperationAlgorithm} and {@link TermAlgorithm}, this algorithm is not limited to a fixed set of formulas, so
+ * its best solution is always at least as good as theirs. The reachable values of the last {@value #MEMO_SIZE} (sorted)
+ * dice rolls are memoized and reused across calls. Instances are thread-safe.
+ * <p>
+ * The number of reachable values grows quickly with the number of dice. Use {@code maxValue} to drop intermediate values
+ * whose magnitude exceeds a lower limit.
+ */
+public class SubsetDpAlgorithm implements Algorithm {
+
+    /** Maximum number of dice supported. */
+    public static final int MAX_DICE = 8;
+
+    /** Maximum number of memoized dice rolls. */
+    static final int MEMO_SIZE = 256;
+
+    private static final int[] DEFAULT_MULTIPLIERS = new int[] { 1, 10, 100 };
+    private static final int KEY_BITS = 7;
+    private static final long NO_KEY = -1;
+
+    private final int[] multipliers;
+    private final int allowedDifference;
+    private final long maxValue;
+    private final BoundedCache<Long, Reachable[]> memo;
+
+    /** Creates an algorithm using the multipliers 1, 10 and 100 without limiting intermediate values. */
+    public SubsetDpAlgorithm() {
+        this(DEFAULT_MULTIPLIERS, AbstractAlgorithm.DEFAULT_DIFFERENCE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates an algorithm using the specified multipliers.
+     *
+     * @param multipliers the positive multipliers which can be applied to each die
+     * @param allowedDifference the maximum difference between a solution and the target
+     * @param maxValue intermediate values with a magnitude greater than this or {@link Integer#MAX_VALUE} are dropped
+     */
+    public SubsetDpAlgorithm(final int[] multipliers, final int allowedDifference, final long maxValue) {
+        if (multipliers.length == 0) {
+            throw new IllegalArgumentException("No multipliers");
+        }
+        for (int multiplier : multipliers) {
+            if (multiplier <= 0) {
+                throw new IllegalArgumentException("Invalid multiplier: %d".formatted(multiplier));
+            }
+        }
+        if (allowedDifference < 0) {
+            throw new IllegalArgumentException("Invalid allowed difference: %d".formatted(allowedDifference));
+        }
+        this.multipliers = multipliers.clone();
+        this.allowedDifference = allowedDifference;
+        this.maxValue = Math.min(maxValue, Integer.MAX_VALUE);
+        this.memo = new BoundedCache<>(MEMO_SIZE);
+    }
+
+    @Override
+    public Solutions compute(final int a, final int b, final int c, final int target) {
+        return compute(new int[] { a, b, c }, target);
+    }
+
+    /** Computes the solutions for any number of dice and the given target number. */
+    public Solutions compute(final int[] dice, final int target) {
+        if (dice.length == 0 || dice.length > MAX_DICE) {
+            throw new IllegalArgumentException("Unsupported number of dice: %d".formatted(dice.length));
+        }
+        int[] sorted = dice.clone();
+        Arrays.sort(sorted);
+        Reachable[] reachable = memoized(sorted);
+        Reachable all = reachable[reachable.length - 1];
+
+        // the first value of each difference, like Solutions keeps the first candidate of each bucket
+        int[] first = new int[allowedDifference + 1];
+        Arrays.fill(first, -1);
+        for (int i = 0; i < all.size; i++) {
+            long difference = abs((long) all.values[i] - target);
+            if (difference <= allowedDifference && first[(int) difference] == -1) {
+                first[(int) difference] = i;
+            }
+        }
+        Solutions solutions = new Solutions(target, allowedDifference);
+        for (int index : first) {
+            if (index != -1) {
+                StringBuilder term = new StringBuilder();
+                render(sorted, reachable, reachable.length - 1, index, term);
+                solutions.add(new Solution(term.toString(), all.values[index]));
+            }
+        }
+        return solutions;
+    }
+
+    /**
+     * Streams one solution for every value within the allowed difference which is reachable with all three dice. The
+     * reachable values are computed (or taken from the memo) up front, the terms are rendered as the stream is consumed.
+     */
+    @Override
+    public Stream<Solution> solutions(final int a, final int b, final int c, final int target) {
+        int[] sorted = new int[] { a, b, c };
+        Arrays.sort(sorted);
+        Reachable[] reachable = memoized(sorted);
+        Reachable all = reachable[reachable.length - 1];
+        return IntStream.range(0, all.size)
+                .filter(index -> abs((long) all.values[index] - target) <= allowedDifference)
+                .mapToObj(index -> {
+                    StringBuilder term = new StringBuilder();
+                    render(sorted, reachable, reachable.length - 1, index, term);
+                    return new Solution(term.toString(), all.values[index]);
+                });
+    }
+
+    /** Returns the number of values reachable with all dice of the specified roll. */
+    int reachable(final int[] dice) {
+        int[] sorted = dice.clone();
+        Arrays.sort(sorted);
+        Reachable[] reachable = memoized(sorted);
+        return reachable[reachable.length - 1].size;
+    }
+
+    /** Returns the number of memoized dice rolls. */
+    int memoized() {
+        return memo.size();
+    }
+
+    @Override
+    public String name() {
+        return "Algorithm based on dynamic programming over dice subsets";
+    }
+
+    // ------------------------------------------------------ dynamic programming
+
+    /** Returns the memoized values of the roll or builds them. Concurrent misses might build twice. */
+    private Reachable[] memoized(final int[] sorted) {
+        long key = key(sorted);
+        return key == NO_KEY ? build(sorted) : memo.get(key, k -> build(sorted));
+    }
+
+    /**
+     * Packs the sorted dice into a long with {@value #KEY_BITS} bits per die. Each die is stored plus one, so that rolls of
+     * different lengths get different keys. Returns {@link #NO_KEY} if a die doesn't fit.
+     */
+    static long key(final int[] sorted) {
+        long key = 0;
+        for (int die : sorted) {
+            if (die < 0 || die + 1 >= 1 << KEY_BITS) {
+                return NO_KEY;
+            }
+            key = key << KEY_BITS | die + 1;
+        }
+        return key;
+    }
+
+    private Reachable[] build(final int[] dice) {
+        int subsets = 1 << dice.length;
+        Reachable[] reachable = new Reachable[subsets];
+        for (int die = 0; die < dice.length; die++) {
+            Reachable single = new Reachable();
+            for (int m = 0; m < multipliers.length; m++) {
+                add(single, (long) dice[die] * multipliers[m], Reachable.LEAF, die, m, 0);
+            }
+            reachable[1 << die] = single;
+        }
+        // subsets in increasing order: all proper subsets of a subset are smaller than the subset itself
+        for (int subset = 1; subset < subsets; subset++) {
+            if (Integer.bitCount(subset) < 2) {
+                continue;
+            }
+            Reachable combined = new Reachable();
+            // enumerate each unordered split once: the left part contains the lowest die of the subset
+            int lowest = Integer.lowestOneBit(subset);
+            for (int left = (subset - 1) & subset; left > 0; left = (left - 1) & subset) {
+                if ((left & lowest) != 0) {
+                    combine(reachable, left, subset & ~left, combined);
+                }
+            }
+            reachable[subset] = combined;
+        }
+        return reachable;
+    }
+
+    private void combine(final Reachable[] reachable, final int leftSubset, final int rightSubset,
+            final Reachable combined) {
+        Reachable left = reachable[leftSubset];
+        Reachable right = reachable[rightSubset];
+        for (int l = 0; l < left.size; l++) {
+            long x = left.values[l];
+            for (int r = 0; r < right.size; r++) {
+                // the operands fit into an int, so no operation overflows a long
+                long y = right.values[r];
+                add(combined, x + y, Reachable.PLUS, leftSubset, l, r);
+                add(combined, x * y, Reachable.TIMES, leftSubset, l, r);
+                add(combined, x - y, Reachable.MINUS, leftSubset, l, r);
+                add(combined, y - x, Reachable.REVERSE_MINUS, leftSubset, l, r);
+                if (y != 0 && x % y == 0) {
+                    add(combined, x / y, Reachable.DIVIDED, leftSubset, l, r);
+                }
+                if (x != 0 && y % x == 0) {
+                    add(combined, y / x, Reachable.REVERSE_DIVIDED, leftSubset, l, r);
+                }
+            }
+        }
+    }
+
+    private void add(final Reachable reachable, final long value, final byte operation, final int leftSubset,
+            final int left, final int right) {
+        if (abs(value) <= maxValue) {
+            reachable.add((int) value, operation, leftSubset, left, right);
+        }
+    }
+
+    private void render(final int[] dice, final Reachable[] reachable, final int subset, final int index,
+            final StringBuilder term) {
+        Reachable current = reachable[subset];
+        byte operation = current.operations[index];
+        if (operation == Reachable.LEAF) {
+            term.append((long) dice[current.leftSubsets[index]] * multipliers[current.lefts[index]]);
+            return;
+        }
+
+        int leftSubset = current.leftSubsets[index];
+        int rightSubset = subset & ~leftSubset;
+        boolean reverse = operation == Reachable.REVERSE_MINUS || operation == Reachable.REVERSE_DIVIDED;
+        int firstSubset = reverse ? rightSubset : leftSubset;
+        int firstIndex = reverse ? current.rights[index] : current.lefts[index];
+        int secondSubset = reverse ? leftSubset : rightSubset;
+        int secondIndex = reverse ? current.lefts[index] : current.rights[index];
+
+        renderOperand(dice, reachable, firstSubset, firstIndex, operation, false, term);
+        term.append(switch (operation) {
+            case Reachable.PLUS -> " + ";
+            case Reachable.TIMES -> " * ";
+            case Reachable.MINUS, Reachable.REVERSE_MINUS -> " - ";
+            default -> " / ";
+        });
+        renderOperand(dice, reachable, secondSubset, secondIndex, operation, true, term);
+    }
+
+    private void renderOperand(final int[] dice, final Reachable[] reachable, final int subset, final int index,
+            final byte parent, final boolean right, final StringBuilder term) {
+        byte operation = reachable[subset].operations[index];
+        boolean brackets = operation != Reachable.LEAF
+                && (precedence(operation) < precedence(parent) || right && precedence(operation) == precedence(parent)
+                        && (parent != Reachable.PLUS && parent != Reachable.TIMES));
+        if (brackets) {
+            term.append('(');
+        }
+        render(dice, reachable, subset, index, term);
+        if (brackets) {
+            term.append(')');
+        }
+    }
+
+    private static int precedence(final byte operation) {
+        return operation == Reachable.TIMES || operation == Reachable.DIVIDED || operation == Reachable.REVERSE_DIVIDED ? 1
+                : 0;
+    }
+
+    /**
+     * The values reachable by a subset of dice. Values are stored in insertion order together with their witness: the
+     * operation, the left subset and the indices of the operands in the left and right subset. For leaves, the left subset is
+     * the index of the die and the left index is the index of the multiplier.
+     */
+    private static final class Reachable {
+
+        static final byte LEAF = 0;
+        static final byte PLUS = 1;
+        static final byte MINUS = 2;
+        static final byte REVERSE_MINUS = 3;
+        static final byte TIMES = 4;
+        static final byte DIVIDED = 5;
+        static final byte REVERSE_DIVIDED = 6;
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        int[] values = new int[INITIAL_CAPACITY];
+        byte[] operations = new byte[INITIAL_CAPACITY];
+        int[] leftSubsets = new int[INITIAL_CAPACITY];
+        int[] lefts = new int[INITIAL_CAPACITY];
+        int[] rights = new int[INITIAL_CAPACITY];
+        int size;
+
+        // open addressing hash table of value indices + 1 (0 = empty slot)
+        private int[] slots = new int[2 * INITIAL_CAPACITY];
+
+        void add(final int value, final byte operation, final int leftSubset, final int left, final int right) {
+            int mask = slots.length - 1;
+            int slot = hash(value) & mask;
+            while (slots[slot] != 0) {
+                if (values[slots[slot] - 1] == value) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == values.length) {
+                grow();
+                add(value, operation, leftSubset, left, right);
+                return;
+            }
+            values[size] = value;
+            operations[size] = operation;
+            leftSubsets[size] = leftSubset;
+            lefts[size] = left;
+            rights[size] = right;
+            size++;
+            slots[slot] = size;
+        }
+
+        private void grow() {
+            int capacity = 2 * values.length;
+            values = Arrays.copyOf(values, capacity);
+            operations = Arrays.copyOf(operations, capacity);
+            leftSubsets = Arrays.copyOf(leftSubsets, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            slots = new int[2 * capacity];
+            int mask = slots.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = hash(values[i]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i + 1;
+            }
+        }
+
+        private static int hash(final int value) {
+            int h = value * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
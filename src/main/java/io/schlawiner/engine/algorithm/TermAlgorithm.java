@@ -16,154 +16,362 @@
 package io.schlawiner.engine.algorithm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import io.schlawiner.engine.term.Assignment;
+import io.schlawiner.engine.term.CompiledTerm;
+import io.schlawiner.engine.term.IntTernaryOperator;
 import io.schlawiner.engine.term.Term;
-import io.schlawiner.engine.term.TermException;
+import io.schlawiner.engine.term.TermGraph;
 
 /**
  * Algorithm that computes solutions using pre-built {@link Term} templates with variable assignments. The terms are parsed once
- * at class-load time and reused across evaluations.
+ * at class-load time and compiled to {@link CompiledTerm}s, which are evaluated on a primitive stack. Alternatively the terms
+ * are compiled to bytecode or merged into one {@link TermGraph} (see {@link Engine}). Terms are only printed for the best
+ * solution.
+ * <p>
+ * The arrays used to evaluate the templates are confined to the calling thread and reused across rows and calls.
  */
 public class TermAlgorithm extends AbstractAlgorithm implements Terms {
 
-    private static final List<Term> ABC = new ArrayList<>();
-    private static final List<Term> PERMUTATIONS = new ArrayList<>();
+    private static final String[] VARIABLES = new String[] { "a", "b", "c" };
+    private static final List<TermFormula> ABC = new ArrayList<>();
+    private static final List<TermFormula> PERMUTATIONS = new ArrayList<>();
+    private static final int STACK_SIZE;
+
+    /** {@link #ABC} followed by {@link #PERMUTATIONS}. The indices of {@link #CANONICAL} refer to this array. */
+    private static final TermFormula[] FORMULAS;
+    static final CanonicalFormulas CANONICAL;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
     static {
         // a + b + c
-        ABC.add(ADD_ABC);
+        ABC.add(new TermFormula(ADD_ABC));
 
         // a - b - c
-        ABC.add(SUBTRACT_ABC);
-        PERMUTATIONS.add(SUBTRACT_BAC);
-        PERMUTATIONS.add(SUBTRACT_CAB);
+        ABC.add(new TermFormula(SUBTRACT_ABC));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_BAC));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_CAB));
 
         // a * b * c
-        ABC.add(MULTIPLY_ABC);
+        ABC.add(new TermFormula(MULTIPLY_ABC));
 
         // a / b / c
-        ABC.add(DIVIDE_ABC);
-        PERMUTATIONS.add(DIVIDE_BAC);
-        PERMUTATIONS.add(DIVIDE_CAB);
+        ABC.add(new TermFormula(DIVIDE_ABC));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_BAC));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_CAB));
 
         // a + b - c
-        ABC.add(ADD_SUBTRACT_ABC);
-        PERMUTATIONS.add(ADD_SUBTRACT_ACB);
-        PERMUTATIONS.add(ADD_SUBTRACT_BCA);
+        ABC.add(new TermFormula(ADD_SUBTRACT_ABC));
+        PERMUTATIONS.add(new TermFormula(ADD_SUBTRACT_ACB));
+        PERMUTATIONS.add(new TermFormula(ADD_SUBTRACT_BCA));
 
         // a * b / c
-        ABC.add(MULTIPLY_DIVIDE_ABC);
-        PERMUTATIONS.add(MULTIPLY_DIVIDE_ACB);
-        PERMUTATIONS.add(MULTIPLY_DIVIDE_BCA);
+        ABC.add(new TermFormula(MULTIPLY_DIVIDE_ABC));
+        PERMUTATIONS.add(new TermFormula(MULTIPLY_DIVIDE_ACB));
+        PERMUTATIONS.add(new TermFormula(MULTIPLY_DIVIDE_BCA));
 
         // a * b + c
-        ABC.add(MULTIPLY_ADD_ABC);
-        PERMUTATIONS.add(MULTIPLY_ADD_ACB);
-        PERMUTATIONS.add(MULTIPLY_ADD_BCA);
+        ABC.add(new TermFormula(MULTIPLY_ADD_ABC));
+        PERMUTATIONS.add(new TermFormula(MULTIPLY_ADD_ACB));
+        PERMUTATIONS.add(new TermFormula(MULTIPLY_ADD_BCA));
 
         // (a + b) * c
-        ABC.add(ADD_MULTIPLY_ABC);
-        PERMUTATIONS.add(ADD_MULTIPLY_ACB);
-        PERMUTATIONS.add(ADD_MULTIPLY_BCA);
+        ABC.add(new TermFormula(ADD_MULTIPLY_ABC));
+        PERMUTATIONS.add(new TermFormula(ADD_MULTIPLY_ACB));
+        PERMUTATIONS.add(new TermFormula(ADD_MULTIPLY_BCA));
 
         // a * b - c
-        ABC.add(MULTIPLY_SUBTRACT_1_ABC);
-        PERMUTATIONS.add(MULTIPLY_SUBTRACT_1_ACB);
-        PERMUTATIONS.add(MULTIPLY_SUBTRACT_1_BCA);
+        ABC.add(new TermFormula(MULTIPLY_SUBTRACT_1_ABC));
+        PERMUTATIONS.add(new TermFormula(MULTIPLY_SUBTRACT_1_ACB));
+        PERMUTATIONS.add(new TermFormula(MULTIPLY_SUBTRACT_1_BCA));
 
         // a - b * c
-        ABC.add(MULTIPLY_SUBTRACT_2_ABC);
-        PERMUTATIONS.add(MULTIPLY_SUBTRACT_2_BAC);
-        PERMUTATIONS.add(MULTIPLY_SUBTRACT_2_CAB);
+        ABC.add(new TermFormula(MULTIPLY_SUBTRACT_2_ABC));
+        PERMUTATIONS.add(new TermFormula(MULTIPLY_SUBTRACT_2_BAC));
+        PERMUTATIONS.add(new TermFormula(MULTIPLY_SUBTRACT_2_CAB));
 
         // (a - b) * c
-        ABC.add(SUBTRACT_MULTIPLY_ABC);
-        PERMUTATIONS.add(SUBTRACT_MULTIPLY_BAC);
-        PERMUTATIONS.add(SUBTRACT_MULTIPLY_ACB);
-        PERMUTATIONS.add(SUBTRACT_MULTIPLY_CAB);
-        PERMUTATIONS.add(SUBTRACT_MULTIPLY_BCA);
-        PERMUTATIONS.add(SUBTRACT_MULTIPLY_CBA);
+        ABC.add(new TermFormula(SUBTRACT_MULTIPLY_ABC));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_MULTIPLY_BAC));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_MULTIPLY_ACB));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_MULTIPLY_CAB));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_MULTIPLY_BCA));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_MULTIPLY_CBA));
 
         // a / b + c
-        ABC.add(DIVIDE_ADD_ABC);
-        PERMUTATIONS.add(DIVIDE_ADD_BAC);
-        PERMUTATIONS.add(DIVIDE_ADD_ACB);
-        PERMUTATIONS.add(DIVIDE_ADD_CAB);
-        PERMUTATIONS.add(DIVIDE_ADD_BCA);
-        PERMUTATIONS.add(DIVIDE_ADD_CBA);
+        ABC.add(new TermFormula(DIVIDE_ADD_ABC));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_ADD_BAC));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_ADD_ACB));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_ADD_CAB));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_ADD_BCA));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_ADD_CBA));
 
         // (a + b) / c
-        ABC.add(ADD_DIVIDE_1_ABC);
-        PERMUTATIONS.add(ADD_DIVIDE_1_ACB);
-        PERMUTATIONS.add(ADD_DIVIDE_1_BCA);
+        ABC.add(new TermFormula(ADD_DIVIDE_1_ABC));
+        PERMUTATIONS.add(new TermFormula(ADD_DIVIDE_1_ACB));
+        PERMUTATIONS.add(new TermFormula(ADD_DIVIDE_1_BCA));
 
         // a / (b + c)
-        ABC.add(ADD_DIVIDE_2_ABC);
-        PERMUTATIONS.add(ADD_DIVIDE_2_BAC);
-        PERMUTATIONS.add(ADD_DIVIDE_2_CAB);
+        ABC.add(new TermFormula(ADD_DIVIDE_2_ABC));
+        PERMUTATIONS.add(new TermFormula(ADD_DIVIDE_2_BAC));
+        PERMUTATIONS.add(new TermFormula(ADD_DIVIDE_2_CAB));
 
         // a / b - c
-        ABC.add(DIVIDE_SUBTRACT_1_ABC);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_1_ACB);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_1_BAC);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_1_BCA);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_1_CAB);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_1_CBA);
+        ABC.add(new TermFormula(DIVIDE_SUBTRACT_1_ABC));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_1_ACB));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_1_BAC));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_1_BCA));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_1_CAB));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_1_CBA));
 
         // a - b / c
-        ABC.add(DIVIDE_SUBTRACT_2_ABC);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_2_ACB);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_2_BAC);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_2_BCA);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_2_CAB);
-        PERMUTATIONS.add(DIVIDE_SUBTRACT_2_CBA);
+        ABC.add(new TermFormula(DIVIDE_SUBTRACT_2_ABC));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_2_ACB));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_2_BAC));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_2_BCA));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_2_CAB));
+        PERMUTATIONS.add(new TermFormula(DIVIDE_SUBTRACT_2_CBA));
 
         // (a - b) / c
-        ABC.add(SUBTRACT_DIVIDE_1_ABC);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_1_ACB);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_1_BAC);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_1_BCA);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_1_CAB);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_1_CBA);
+        ABC.add(new TermFormula(SUBTRACT_DIVIDE_1_ABC));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_1_ACB));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_1_BAC));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_1_BCA));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_1_CAB));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_1_CBA));
 
         // a / (b - c)
-        ABC.add(SUBTRACT_DIVIDE_2_ABC);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_2_ACB);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_2_BAC);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_2_BCA);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_2_CAB);
-        PERMUTATIONS.add(SUBTRACT_DIVIDE_2_CBA);
+        ABC.add(new TermFormula(SUBTRACT_DIVIDE_2_ABC));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_2_ACB));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_2_BAC));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_2_BCA));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_2_CAB));
+        PERMUTATIONS.add(new TermFormula(SUBTRACT_DIVIDE_2_CBA));
+
+        int stackSize = 0;
+        for (TermFormula formula : ABC) {
+            stackSize = Math.max(stackSize, formula.compiled().stackSize());
+        }
+        for (TermFormula formula : PERMUTATIONS) {
+            stackSize = Math.max(stackSize, formula.compiled().stackSize());
+        }
+        STACK_SIZE = stackSize;
+
+        FORMULAS = new TermFormula[ABC.size() + PERMUTATIONS.size()];
+        boolean[] abc = new boolean[FORMULAS.length];
+        for (int i = 0; i < FORMULAS.length; i++) {
+            FORMULAS[i] = i < ABC.size() ? ABC.get(i) : PERMUTATIONS.get(i - ABC.size());
+            abc[i] = i < ABC.size();
+        }
+        CANONICAL = new CanonicalFormulas(FORMULAS, abc, MULTIPLIERS);
     }
 
+    private final Engine engine;
+
     TermAlgorithm() {
-        super("Algorithm based on variable terms");
+        this(Engine.COMPILED);
+    }
+
+    TermAlgorithm(final Engine engine) {
+        super(switch (engine) {
+            case COMPILED -> "Algorithm based on variable terms";
+            case BYTECODE -> "Algorithm based on variable terms compiled to bytecode";
+            case GRAPH -> "Algorithm based on variable terms merged into a graph";
+        });
+        this.engine = engine;
+    }
+
+    /**
+     * Evaluates the {@link CanonicalFormulas} only if all dice numbers are covered by {@link FormulaBounds} and the candidates
+     * are {@linkplain Candidates#canonical() canonical}.
+     */
+    @Override
+    protected void computeRow(final int a, final int b, final int c, final int[] multiplier, final Candidates candidates) {
+        int row = FormulaBounds.row(multiplier);
+        if (row != -1 && FormulaBounds.dice(a, b, c) && candidates.canonical()) {
+            int x = a * multiplier[0];
+            int y = b * multiplier[1];
+            int z = c * multiplier[2];
+            boolean permutations = differentDiceNumbers(x, y, z);
+            if (engine == Engine.BYTECODE) {
+                for (int i : CANONICAL.formulas(row)) {
+                    if (permutations || i < ABC.size()) {
+                        candidates.add(FORMULAS[i], x, y, z, Bytecode.FORMULAS[i].applyAsInt(x, y, z));
+                    }
+                }
+            } else if (engine == Engine.GRAPH) {
+                Scratch scratch = SCRATCH.get();
+                int[] results = scratch.graph(x, y, z);
+                for (int i : CANONICAL.formulas(row)) {
+                    if (permutations || i < ABC.size()) {
+                        candidates.add(FORMULAS[i], x, y, z, scratch.valid[i] ? results[i] : Formula.INVALID);
+                    }
+                }
+            } else {
+                Scratch scratch = SCRATCH.get();
+                int[] values = scratch.values(x, y, z);
+                for (int i : CANONICAL.formulas(row)) {
+                    if (permutations || i < ABC.size()) {
+                        candidates.add(FORMULAS[i], x, y, z, FORMULAS[i].eval(values, scratch.stack));
+                    }
+                }
+            }
+        } else {
+            super.computeRow(a, b, c, multiplier, candidates);
+        }
     }
 
     @Override
-    protected void computePermutation(final int a, final int b, final int c, final int target, final Solutions solutions) {
-        // @formatter:off
-        Assignment[] assignments = new Assignment[] {
-                new Assignment("a", a),
-                new Assignment("b", b),
-                new Assignment("c", c)
-        };
-        // @formatter:on
-
-        for (Term term : ABC) {
-            try {
-                solutions.add(new Solution(term.print(assignments), term.eval(assignments)));
-            } catch (TermException ignore) {
+    protected void computePermutation(final int a, final int b, final int c, final Candidates candidates) {
+        switch (engine) {
+            case COMPILED -> computeCompiled(a, b, c, candidates);
+            case BYTECODE -> computeBytecode(a, b, c, candidates);
+            case GRAPH -> computeGraph(a, b, c, candidates);
+        }
+    }
+
+    private void computeCompiled(final int a, final int b, final int c, final Candidates candidates) {
+        Scratch scratch = SCRATCH.get();
+        int[] values = scratch.values(a, b, c);
+        int[] stack = scratch.stack;
+        for (TermFormula formula : ABC) {
+            candidates.add(formula, a, b, c, formula.eval(values, stack));
+        }
+        if (differentDiceNumbers(a, b, c)) {
+            for (TermFormula formula : PERMUTATIONS) {
+                candidates.add(formula, a, b, c, formula.eval(values, stack));
             }
         }
+    }
+
+    private void computeBytecode(final int a, final int b, final int c, final Candidates candidates) {
+        // IntTernaryOperator.INVALID is the same as Formula.INVALID
+        for (int i = 0; i < ABC.size(); i++) {
+            candidates.add(ABC.get(i), a, b, c, Bytecode.ABC[i].applyAsInt(a, b, c));
+        }
         if (differentDiceNumbers(a, b, c)) {
-            for (Term term : PERMUTATIONS) {
-                try {
-                    solutions.add(new Solution(term.print(assignments), term.eval(assignments)));
-                } catch (TermException ignore) {
-                }
+            for (int i = 0; i < PERMUTATIONS.size(); i++) {
+                candidates.add(PERMUTATIONS.get(i), a, b, c, Bytecode.PERMUTATIONS[i].applyAsInt(a, b, c));
+            }
+        }
+    }
+
+    private void computeGraph(final int a, final int b, final int c, final Candidates candidates) {
+        Scratch scratch = SCRATCH.get();
+        int[] results = scratch.graph(a, b, c);
+        int formulas = differentDiceNumbers(a, b, c) ? FORMULAS.length : ABC.size();
+        for (int i = 0; i < formulas; i++) {
+            candidates.add(FORMULAS[i], a, b, c, scratch.valid[i] ? results[i] : Formula.INVALID);
+        }
+    }
+
+    /** Engines to evaluate the term templates. */
+    public enum Engine {
+
+        /** Evaluates the templates as {@link CompiledTerm}s on a primitive stack. */
+        COMPILED,
+
+        /** Evaluates the templates as hidden classes generated by {@link Term#compileToBytecode(String...)}. */
+        BYTECODE,
+
+        /**
+         * Evaluates all templates at once as a {@link TermGraph}. Subexpressions which are shared by several templates are
+         * computed only once.
+         */
+        GRAPH
+    }
+
+    /** Holds the templates merged into a graph. Initialized on first use of {@link Engine#GRAPH}. */
+    private static final class Graph {
+
+        private static final TermGraph GRAPH = TermGraph.of(
+                Arrays.stream(FORMULAS).map(TermFormula::term).toList(), VARIABLES);
+    }
+
+    /** Arrays to evaluate the templates, reused by the thread which owns them. */
+    private static final class Scratch {
+
+        private final int[] values = new int[VARIABLES.length];
+        private final int[] stack = new int[STACK_SIZE];
+        private TermGraph.Registers registers;
+        private int[] results;
+        private boolean[] valid;
+
+        int[] values(final int a, final int b, final int c) {
+            values[0] = a;
+            values[1] = b;
+            values[2] = c;
+            return values;
+        }
+
+        /**
+         * Evaluates all templates with the graph. The returned results and their {@link #valid} flags are overwritten by the
+         * next call.
+         */
+        int[] graph(final int a, final int b, final int c) {
+            if (registers == null) {
+                // the graph is only initialized if the GRAPH engine is used
+                registers = Graph.GRAPH.registers();
+                results = new int[FORMULAS.length];
+                valid = new boolean[FORMULAS.length];
+            }
+            Graph.GRAPH.eval(values(a, b, c), registers, results, valid);
+            return results;
+        }
+    }
+
+    /** Holds the templates compiled to bytecode. Initialized on first use of {@link Engine#BYTECODE}. */
+    private static final class Bytecode {
+
+        private static final IntTernaryOperator[] ABC = compile(TermAlgorithm.ABC);
+        private static final IntTernaryOperator[] PERMUTATIONS = compile(TermAlgorithm.PERMUTATIONS);
+        private static final IntTernaryOperator[] FORMULAS = concat(ABC, PERMUTATIONS);
+
+        private static IntTernaryOperator[] compile(final List<TermFormula> formulas) {
+            IntTernaryOperator[] operators = new IntTernaryOperator[formulas.size()];
+            for (int i = 0; i < operators.length; i++) {
+                operators[i] = formulas.get(i).term().compileToBytecode(VARIABLES);
             }
+            return operators;
+        }
+
+        private static IntTernaryOperator[] concat(final IntTernaryOperator[] first, final IntTernaryOperator[] second) {
+            IntTernaryOperator[] operators = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, operators, first.length, second.length);
+            return operators;
+        }
+    }
+
+    /**
+     * A term template and its compiled form. The compiled form is used to evaluate the template, the term to print it. The
+     * values are assigned to the variables {@code a}, {@code b} and {@code c}.
+     */
+    private record TermFormula(Term term, CompiledTerm compiled) implements Formula {
+
+        TermFormula(final Term term) {
+            this(term, term.compile(VARIABLES));
+        }
+
+        @Override
+        public int eval(final int a, final int b, final int c) {
+            return eval(new int[] { a, b, c }, new int[compiled.stackSize()]);
+        }
+
+        int eval(final int[] values, final int[] stack) {
+            return compiled.tryEval(values, stack) ? stack[0] : INVALID;
+        }
+
+        @Override
+        public String term(final int a, final int b, final int c) {
+            // @formatter:off
+            return term.print(
+                    new Assignment(VARIABLES[0], a),
+                    new Assignment(VARIABLES[1], b),
+                    new Assignment(VARIABLES[2], c));
+            // @formatter:on
         }
     }
 }
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+/**
+ * Collects candidates for a range of targets in one enumeration. Only the first candidate per result is kept, together with
+ * its position in the enumeration. The position is used to pick the same solution as {@link Solutions} would, if the
+ * candidates were added to a {@link Solutions} instance for each target.
+ */
+class ValueBuckets implements Candidates {
+
+    private final int minValue;
+    private final int maxValue;
+    private final Formula[] formulas;
+    private final int[] values;
+    private final int[] positions;
+    private int position;
+
+    /** Creates buckets for all results between {@code minValue} and {@code maxValue} (inclusive). */
+    ValueBuckets(final int minValue, final int maxValue) {
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.formulas = new Formula[maxValue - minValue + 1];
+        this.values = new int[3 * formulas.length];
+        this.positions = new int[formulas.length];
+        this.position = 0;
+    }
+
+    @Override
+    public void add(final Formula formula, final int a, final int b, final int c, final int result) {
+        int index = result - minValue;
+        if (index >= 0 && index < formulas.length && formulas[index] == null) {
+            formulas[index] = formula;
+            values[3 * index] = a;
+            values[3 * index + 1] = b;
+            values[3 * index + 2] = c;
+            positions[index] = position;
+        }
+        position++;
+    }
+
+    /** Skipping candidates doesn't change the relative positions of the others. */
+    @Override
+    public boolean accepts(final int min, final int max) {
+        return max >= minValue && min <= maxValue;
+    }
+
+    /**
+     * Returns the solutions for the specified target based on the collected candidates. For each difference, the candidate
+     * which comes first in the enumeration is added, so that all buckets of the solutions are the same as if the candidates
+     * were added directly.
+     */
+    Solutions solutions(final int target, final int allowedDifference) {
+        Solutions solutions = new Solutions(target, allowedDifference);
+        for (int difference = 0; difference <= allowedDifference; difference++) {
+            int below = index(target - difference);
+            int above = index(target + difference);
+            if (below != -1 && above != -1) {
+                add(solutions, positions[below] < positions[above] ? below : above);
+            } else if (below != -1) {
+                add(solutions, below);
+            } else if (above != -1) {
+                add(solutions, above);
+            }
+        }
+        return solutions;
+    }
+
+    private int index(final int value) {
+        int index = value - minValue;
+        return index >= 0 && index < formulas.length && formulas[index] != null ? index : -1;
+    }
+
+    private void add(final Solutions solutions, final int index) {
+        solutions.add(formulas[index], values[3 * index], values[3 * index + 1], values[3 * index + 2], index + minValue);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.stream.Stream;
+
+/**
+ * Algorithm which evaluates the formulas of {@link OperationAlgorithm} using the incubating Vector API. Each formula is
+ * evaluated for all multiplier combinations at once: one lane per combination. Lanes with an inexact division or a result
+ * outside the allowed difference are masked out, and the remaining lanes are reduced to the lane closest to the target.
+ * <p>
+ * The best solution is the same as the one of {@link OperationAlgorithm}. Since only the best lane is kept, other differences
+ * are not available to {@link Solutions#bestSolution(io.schlawiner.engine.game.Level)}.
+ * <p>
+ * The Vector API is only used if the {@link VectorKernel} has been compiled (profile {@code vector}) and the module
+ * {@code jdk.incubator.vector} is available at runtime ({@code --add-modules jdk.incubator.vector}). Otherwise, this
+ * algorithm falls back to {@link OperationAlgorithm}. The same applies to dice values greater than
+ * {@value VectorKernel#MAX_DICE} and to {@link #computeAll(int, int, int, int, int)}, which enumerates the candidates only
+ * once anyway.
+ */
+public class VectorAlgorithm implements Algorithm {
+
+    private static final String KERNEL_CLASS = "io.schlawiner.engine.algorithm.VectorLanes";
+    private static final VectorKernel KERNEL = loadKernel();
+
+    private final OperationAlgorithm scalar;
+    private final int allowedDifference;
+    private final VectorKernel kernel;
+
+    public VectorAlgorithm() {
+        this(AbstractAlgorithm.DEFAULT_DIFFERENCE);
+    }
+
+    VectorAlgorithm(final int allowedDifference) {
+        this(allowedDifference, KERNEL);
+    }
+
+    /** Creates an algorithm using the specified kernel, or the scalar fallback only if {@code kernel} is {@code null}. */
+    VectorAlgorithm(final int allowedDifference, final VectorKernel kernel) {
+        if (allowedDifference < 0 || allowedDifference > VectorKernel.MAX_DIFFERENCE) {
+            throw new IllegalArgumentException("Invalid allowed difference: %d".formatted(allowedDifference));
+        }
+        this.scalar = new OperationAlgorithm(allowedDifference);
+        this.allowedDifference = allowedDifference;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public Solutions compute(final int a, final int b, final int c, final int target) {
+        if (kernel != null && dice(a) && dice(b) && dice(c)) {
+            Solutions solutions = new Solutions(target, allowedDifference);
+            kernel.compute(a, b, c, target, allowedDifference, solutions);
+            return solutions;
+        }
+        return scalar.compute(a, b, c, target);
+    }
+
+    @Override
+    public Solutions[] computeAll(final int a, final int b, final int c, final int minTarget, final int maxTarget) {
+        return scalar.computeAll(a, b, c, minTarget, maxTarget);
+    }
+
+    /** Streams the solutions of the scalar algorithm. */
+    @Override
+    public Stream<Solution> solutions(final int a, final int b, final int c, final int target) {
+        return scalar.solutions(a, b, c, target);
+    }
+
+    @Override
+    public String name() {
+        return kernel != null ? "Algorithm based on static operations using the Vector API" : scalar.name();
+    }
+
+    private static boolean dice(final int value) {
+        return Math.abs(value) <= VectorKernel.MAX_DICE;
+    }
+
+    /** Returns {@code true} if the Vector API is available and used by this algorithm. */
+    public static boolean vectorSupport() {
+        return KERNEL != null;
+    }
+
+    private static VectorKernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (VectorKernel) Class.forName(KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // not compiled with the vector profile
+            return null;
+        }
+    }
+}
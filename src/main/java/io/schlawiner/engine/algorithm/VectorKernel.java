@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+/**
+ * Evaluates the formulas of {@link OperationAlgorithm} using the incubating Vector API. The implementation lives in a
+ * separate source directory, which is only compiled with the {@code vector} profile, so that the regular build doesn't need
+ * the module {@code jdk.incubator.vector}. {@link VectorAlgorithm} loads it reflectively if both the class and the module are
+ * available.
+ */
+interface VectorKernel {
+
+    /** The maximum allowed difference which can be encoded in the keys of the lanes. */
+    int MAX_DIFFERENCE = (Integer.MAX_VALUE >> 11) - 1;
+
+    /**
+     * The maximum absolute dice value. Divisions are computed as floats, which is exact as long as dividends and divisors
+     * don't exceed 2^24. The largest dividend is the product of two dice values, each multiplied by 100.
+     */
+    int MAX_DICE = 40;
+
+    /** Adds the best candidate of all multiplier combinations and formulas to the specified solutions. */
+    void compute(int a, int b, int c, int target, int allowedDifference, Solutions solutions);
+}
@@ -0,0 +1,242 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.analytics;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import io.schlawiner.engine.algorithm.Algorithm;
+import io.schlawiner.engine.algorithm.Algorithms;
+import io.schlawiner.engine.algorithm.Solution;
+import io.schlawiner.engine.algorithm.Solutions;
+import io.schlawiner.engine.game.Settings;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.min;
+
+/**
+ * Exact distribution of the best difference for each target number over all {@value #ROLLS} equally likely dice rolls.
+ * The best differences are computed once by an {@link Algorithm} in parallel using {@link Algorithms}. Everything else is
+ * derived from the distribution.
+ * <p>
+ * The expected scores assume a perfect player: the player always finds the best solution, and skips the number if its
+ * difference is greater than the penalty or if there's no solution at all. So the score of a roll is the minimum of its
+ * best difference and the penalty. Retries are used whenever the expected score of a re-roll is lower than the score of the
+ * current roll. Target numbers are drawn uniformly as by {@link io.schlawiner.engine.game.Numbers#Numbers(int)}.
+ */
+public final class ScoreAnalytics {
+
+    /** Best difference of a roll which has no solution within the allowed difference of the algorithm. */
+    public static final int NO_SOLUTION = -1;
+
+    static final int MIN_DICE = 1;
+    static final int MAX_DICE = 6;
+    static final int ROLLS = MAX_DICE * MAX_DICE * MAX_DICE;
+    static final int MIN_TARGET = 1;
+    static final int MAX_TARGET = 100;
+    static final int TARGETS = MAX_TARGET - MIN_TARGET + 1;
+
+    /** Computes the distribution using the common fork/join pool. */
+    public static ScoreAnalytics compute(final Algorithm algorithm) {
+        return compute(ForkJoinPool.commonPool(), algorithm);
+    }
+
+    /** Computes the distribution using the specified pool. The algorithm must be thread-safe. */
+    public static ScoreAnalytics compute(final ForkJoinPool pool, final Algorithm algorithm) {
+        int[][] dice = new int[ROLLS * TARGETS][];
+        int[] targets = new int[ROLLS * TARGETS];
+        int index = 0;
+        for (int a = MIN_DICE; a <= MAX_DICE; a++) {
+            for (int b = MIN_DICE; b <= MAX_DICE; b++) {
+                for (int c = MIN_DICE; c <= MAX_DICE; c++) {
+                    int[] roll = new int[] { a, b, c };
+                    for (int target = MIN_TARGET; target <= MAX_TARGET; target++) {
+                        dice[index] = roll;
+                        targets[index] = target;
+                        index++;
+                    }
+                }
+            }
+        }
+        Solutions[] results = new Solutions[dice.length];
+        Algorithms.solveBatch(pool, algorithm, dice, targets, results);
+
+        int[] differences = new int[dice.length];
+        for (int i = 0; i < results.length; i++) {
+            Solution best = results[i].bestSolution();
+            differences[i] = best != null ? abs(best.result() - targets[i]) : NO_SOLUTION;
+        }
+        return new ScoreAnalytics(algorithm.name(), differences);
+    }
+
+    private final String algorithm;
+    private final int maxDifference;
+    // [target][difference], the last column counts the rolls without solution
+    private final int[][] counts;
+
+    private ScoreAnalytics(final String algorithm, final int[] differences) {
+        this.algorithm = algorithm;
+        this.maxDifference = Arrays.stream(differences).max().orElse(0);
+        this.counts = new int[TARGETS][maxDifference + 2];
+        for (int i = 0; i < differences.length; i++) {
+            int difference = differences[i];
+            counts[i % TARGETS][difference == NO_SOLUTION ? maxDifference + 1 : difference]++;
+        }
+    }
+
+    // ------------------------------------------------------ distribution
+
+    /** Returns the name of the algorithm used to compute the distribution. */
+    public String algorithm() {
+        return algorithm;
+    }
+
+    /** Returns the greatest best difference of all rolls and targets. */
+    public int maxDifference() {
+        return maxDifference;
+    }
+
+    /** Returns the number of rolls whose best difference for the target is {@code difference}. */
+    public int count(final int target, final int difference) {
+        checkTarget(target);
+        if (difference < 0 || difference > maxDifference) {
+            return 0;
+        }
+        return counts[target - MIN_TARGET][difference];
+    }
+
+    /** Returns the number of rolls without solution for the target. */
+    public int unsolved(final int target) {
+        checkTarget(target);
+        return counts[target - MIN_TARGET][maxDifference + 1];
+    }
+
+    /** Returns the probability that the best difference of a random roll for the target is {@code difference}. */
+    public double probability(final int target, final int difference) {
+        return (double) count(target, difference) / ROLLS;
+    }
+
+    // ------------------------------------------------------ expected score
+
+    /** Returns the expected score of a perfect player for the target without retries. */
+    public double expectedScore(final int target, final int penalty) {
+        return expectedScore(target, penalty, 0);
+    }
+
+    /** Returns the expected score of a perfect player for the target if all retries can be used for this target. */
+    public double expectedScore(final int target, final int penalty, final int retries) {
+        checkTarget(target);
+        checkSettings(penalty, retries);
+        double expected = expectedMin(target, penalty, 0, Double.POSITIVE_INFINITY);
+        for (int r = 1; r <= retries; r++) {
+            expected = expectedMin(target, penalty, 0, expected);
+        }
+        return expected;
+    }
+
+    /**
+     * Returns the expected total score of a perfect player for a game with {@link Settings#numbers()} targets and
+     * {@link Settings#retries()} retries, which can be spent on any target.
+     */
+    public double expectedGameScore(final Settings settings) {
+        return expectedGameScore(settings.numbers(), settings.penalty(), settings.retries());
+    }
+
+    /** Returns the expected total score of a perfect player for a game with {@code numbers} targets and {@code retries}. */
+    public double expectedGameScore(final int numbers, final int penalty, final int retries) {
+        checkSettings(penalty, retries);
+        if (numbers < 0) {
+            throw new IllegalArgumentException("Negative number of targets: %d".formatted(numbers));
+        }
+        // game[k][r]: expected score of the last k targets with r retries left
+        double[][] game = new double[numbers + 1][retries + 1];
+        for (int k = 1; k <= numbers; k++) {
+            for (int r = 0; r <= retries; r++) {
+                double sum = 0;
+                for (int target = MIN_TARGET; target <= MAX_TARGET; target++) {
+                    // with rr retries left, either keep the roll or retry
+                    double expected = expectedMin(target, penalty, game[k - 1][0], Double.POSITIVE_INFINITY);
+                    for (int rr = 1; rr <= r; rr++) {
+                        expected = expectedMin(target, penalty, game[k - 1][rr], expected);
+                    }
+                    sum += expected;
+                }
+                game[k][r] = sum / TARGETS;
+            }
+        }
+        return game[numbers][retries];
+    }
+
+    /** Returns E[min(score + keep, retry)] over all rolls, where score is the score of the roll for the target. */
+    private double expectedMin(final int target, final int penalty, final double keep, final double retry) {
+        int[] count = counts[target - MIN_TARGET];
+        double sum = min(penalty + keep, retry) * count[maxDifference + 1];
+        for (int difference = 0; difference <= maxDifference; difference++) {
+            if (count[difference] != 0) {
+                sum += min(min(difference, penalty) + keep, retry) * count[difference];
+            }
+        }
+        return sum / ROLLS;
+    }
+
+    // ------------------------------------------------------ export
+
+    /**
+     * Writes the distribution as CSV. There's one row per target with the number of rolls for each best difference, the
+     * number of rolls without solution and the expected score of a perfect player for 0 up to {@link Settings#retries()}
+     * retries spent on that target.
+     */
+    public void writeCsv(final Appendable out, final Settings settings) throws IOException {
+        checkSettings(settings.penalty(), settings.retries());
+        out.append("target");
+        for (int difference = 0; difference <= maxDifference; difference++) {
+            out.append(",difference_").append(String.valueOf(difference));
+        }
+        out.append(",no_solution");
+        for (int r = 0; r <= settings.retries(); r++) {
+            out.append(",expected_score_").append(String.valueOf(r)).append("_retries");
+        }
+        out.append('\n');
+
+        for (int target = MIN_TARGET; target <= MAX_TARGET; target++) {
+            out.append(String.valueOf(target));
+            for (int count : counts[target - MIN_TARGET]) {
+                out.append(',').append(String.valueOf(count));
+            }
+            for (int r = 0; r <= settings.retries(); r++) {
+                out.append(',').append(String.format(Locale.ROOT, "%.4f", expectedScore(target, settings.penalty(), r)));
+            }
+            out.append('\n');
+        }
+    }
+
+    private static void checkTarget(final int target) {
+        if (target < MIN_TARGET || target > MAX_TARGET) {
+            throw new IllegalArgumentException("Target out of range: %d".formatted(target));
+        }
+    }
+
+    private static void checkSettings(final int penalty, final int retries) {
+        if (penalty < 0) {
+            throw new IllegalArgumentException("Negative penalty: %d".formatted(penalty));
+        }
+        if (retries < 0) {
+            throw new IllegalArgumentException("Negative retries: %d".formatted(retries));
+        }
+    }
+}
@@ -17,18 +17,27 @@ package io.schlawiner.engine.game;
 
 import io.schlawiner.engine.algorithm.Solution;
 import io.schlawiner.engine.term.Term;
+import io.schlawiner.engine.term.TermAnalysis;
 
 import static java.lang.Math.abs;
 
 /**
- * Result of a human player's calculation attempt, including their term, the target number, and the algorithm's best solution
- * for comparison.
+ * Result of a human player's calculation attempt, including the analysis of their term, the target number, and the
+ * algorithm's best solution for comparison. The term is evaluated once by its analysis, not on every call.
  */
-public record Calculation(Term term, int target, Solution bestSolution) {
+public record Calculation(TermAnalysis analysis, int target, Solution bestSolution) {
+
+    public Calculation(final Term term, final int target, final Solution bestSolution) {
+        this(term.analyze(), target, bestSolution);
+    }
+
+    public Term term() {
+        return analysis.term();
+    }
 
     /** Returns the absolute difference between the player's result and the target. */
     public int difference() {
-        return abs(term.eval() - target);
+        return abs(analysis.result() - target);
     }
 
     /** Returns {@code true} if the player's solution is as good as the algorithm's best. */
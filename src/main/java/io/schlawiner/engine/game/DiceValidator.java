@@ -21,6 +21,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import io.schlawiner.engine.term.Term;
+import io.schlawiner.engine.term.TermAnalysis;
 
 /** Validates that a player's expression uses all dice values exactly once, with valid multipliers (1, 10, or 100). */
 public final class DiceValidator {
@@ -30,7 +31,15 @@ public final class DiceValidator {
 
     /** Validates that the term uses all dice values exactly once with valid multipliers. */
     static void validate(final Dice dice, final Term term) throws DiceException {
-        int[] values = term.getValues();
+        validate(dice, term.getValues());
+    }
+
+    /** Same as {@link #validate(Dice, Term)}, but uses the values of an existing analysis instead of walking the term. */
+    static void validate(final Dice dice, final TermAnalysis analysis) throws DiceException {
+        validate(dice, analysis.values());
+    }
+
+    private static void validate(final Dice dice, final int[] values) throws DiceException {
         if (values.length < dice.numbers().length) {
             throw new DiceException("The term contains not all dice numbers.");
         } else if (values.length > dice.numbers().length) {
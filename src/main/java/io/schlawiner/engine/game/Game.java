@@ -23,6 +23,7 @@ import io.schlawiner.engine.algorithm.Solution;
 import io.schlawiner.engine.algorithm.Solutions;
 import io.schlawiner.engine.score.Scoreboard;
 import io.schlawiner.engine.term.Term;
+import io.schlawiner.engine.term.TermAnalysis;
 import io.schlawiner.engine.term.TermException;
 
 import static java.lang.Math.abs;
@@ -149,16 +150,16 @@ public class Game {
      */
     public Calculation calculate(final String expression) throws DiceException, TermException {
         Calculation calculation;
-        Term term = Term.valueOf(expression);
-        DiceValidator.validate(dice, term);
+        TermAnalysis analysis = Term.valueOf(expression).analyze();
+        DiceValidator.validate(dice, analysis);
 
-        int result = term.eval();
+        int result = analysis.result();
         int difference = abs(result - numbers.current());
         if (difference > 0) {
             Solutions solutions = algorithm.compute(dice.numbers()[0], dice.numbers()[1], dice.numbers()[2], numbers.current());
-            calculation = new Calculation(term, numbers.current(), solutions.bestSolution());
+            calculation = new Calculation(analysis, numbers.current(), solutions.bestSolution());
         } else {
-            calculation = new Calculation(term, numbers.current(), new Solution(term.print(), result));
+            calculation = new Calculation(analysis, numbers.current(), new Solution(analysis.print(), result));
         }
         return calculation;
     }
@@ -183,6 +184,14 @@ public class Game {
         score(term.print(), difference);
     }
 
+    /**
+     * Stores the difference of the calculation for the current player in the score board. Uses the analysis of the
+     * calculation instead of walking the term again.
+     */
+    public void score(final Calculation calculation) {
+        score(calculation.analysis().print(), calculation.difference());
+    }
+
     public void score(final String term, final int difference) {
         scoreboard.score(numbers.index(), players.current(), term, difference);
     }
@@ -40,6 +40,26 @@ public class Numbers implements Iterable<Integer> {
         }
     }
 
+    /**
+     * Generates {@code count} random numbers rated by difficulty. Easy levels prefer numbers which most dice rolls can reach,
+     * hard levels prefer numbers which are hard to reach. See {@link TargetDistribution} for details.
+     */
+    public Numbers(final int count, final Level level) {
+        this(count, level, new Random());
+    }
+
+    // Used for unit tests
+    Numbers(final int count, final Level level, final Random random) {
+        this.count = count;
+        this.index = -1;
+        this.current = -1;
+        this.numbers = new Integer[count];
+        TargetDistribution distribution = TargetDistribution.instance();
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = distribution.next(level, random);
+        }
+    }
+
     // Used for unit tests
     Numbers(final int[] numbers) {
         this.count = numbers.length;
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.game;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import io.schlawiner.engine.algorithm.Reachability;
+
+import static java.lang.Math.exp;
+
+/**
+ * Distribution of the target numbers by difficulty. The difficulty of a target is the expected best difference over all
+ * {@value #ROLLS} ordered dice rolls, based on {@link Reachability}. A roll which can't get within the allowed difference
+ * counts as {@value #UNREACHABLE_DIFFERENCE}.
+ * <p>
+ * Each level tilts the distribution: {@link Level#EASY} prefers targets with a low expected difference, {@link Level#HARD}
+ * prefers targets with a high expected difference, and {@link Level#MEDIUM} draws all targets uniformly. The weights are
+ * {@code exp(-tilt * x)} where {@code x} is the expected difference scaled to [0, 1]. The distribution is computed once
+ * per JVM, when it's used for the first time.
+ */
+final class TargetDistribution {
+
+    static final int MIN_TARGET = 1;
+    static final int MAX_TARGET = 100;
+    static final int ROLLS = 216;
+    static final int UNREACHABLE_DIFFERENCE = 16;
+
+    /** Ratio between the weights of the easiest and the hardest target is {@code exp(TILT)}. */
+    private static final double TILT = 2.0;
+
+    private static final class Holder {
+        private static final TargetDistribution INSTANCE = new TargetDistribution(new Reachability());
+    }
+
+    static TargetDistribution instance() {
+        return Holder.INSTANCE;
+    }
+
+    private final double[] expectedDifferences;
+    private final double[][] cumulativeWeights;
+
+    TargetDistribution(final Reachability reachability) {
+        this.expectedDifferences = new double[MAX_TARGET - MIN_TARGET + 1];
+        for (int target = MIN_TARGET; target <= MAX_TARGET; target++) {
+            int sum = 0;
+            for (int a = 1; a <= 6; a++) {
+                for (int b = 1; b <= 6; b++) {
+                    for (int c = 1; c <= 6; c++) {
+                        int distance = reachability.distance(a, b, c, target);
+                        sum += distance == Reachability.UNREACHABLE ? UNREACHABLE_DIFFERENCE : distance;
+                    }
+                }
+            }
+            expectedDifferences[target - MIN_TARGET] = (double) sum / ROLLS;
+        }
+
+        double min = Arrays.stream(expectedDifferences).min().orElse(0);
+        double max = Arrays.stream(expectedDifferences).max().orElse(0);
+        double range = max > min ? max - min : 1;
+        Level[] levels = Level.values();
+        this.cumulativeWeights = new double[levels.length][expectedDifferences.length];
+        for (Level level : levels) {
+            double[] cumulative = cumulativeWeights[level.ordinal()];
+            double total = 0;
+            for (int i = 0; i < expectedDifferences.length; i++) {
+                double x = (expectedDifferences[i] - min) / range;
+                total += exp(-tilt(level) * x);
+                cumulative[i] = total;
+            }
+        }
+    }
+
+    /** Draws a target number for the specified level. */
+    int next(final Level level, final RandomGenerator random) {
+        double[] cumulative = cumulativeWeights[level.ordinal()];
+        double value = random.nextDouble(cumulative[cumulative.length - 1]);
+        int index = Arrays.binarySearch(cumulative, value);
+        // binarySearch returns -(insertion point) - 1 if there's no exact match
+        return MIN_TARGET + (index >= 0 ? index + 1 : -index - 1);
+    }
+
+    /** Returns the expected best difference over all ordered rolls for the specified target. */
+    double expectedDifference(final int target) {
+        return expectedDifferences[target - MIN_TARGET];
+    }
+
+    /** Returns the probability of the specified target for the specified level. */
+    double probability(final Level level, final int target) {
+        double[] cumulative = cumulativeWeights[level.ordinal()];
+        int index = target - MIN_TARGET;
+        double weight = index == 0 ? cumulative[0] : cumulative[index] - cumulative[index - 1];
+        return weight / cumulative[cumulative.length - 1];
+    }
+
+    private static double tilt(final Level level) {
+        return switch (level) {
+            case EASY -> TILT;
+            case MEDIUM -> 0;
+            case HARD -> -TILT;
+        };
+    }
+}
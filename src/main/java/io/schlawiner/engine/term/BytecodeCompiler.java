@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.constant.ConstantDescs.CD_Object;
+import static java.lang.constant.ConstantDescs.CD_int;
+import static java.lang.constant.ConstantDescs.INIT_NAME;
+import static java.lang.constant.ConstantDescs.MTD_void;
+
+/**
+ * Compiles a {@link Term} with up to three variables into a hidden class implementing {@link IntTernaryOperator}. The
+ * generated method evaluates the term with plain int instructions. Divisions are checked inline and branch to a
+ * {@code return INVALID} if they are by zero or not exact.
+ * <p>
+ * For {@code a / (b + c)} the generated method is equivalent to
+ *
+ * <pre>
+ * public int applyAsInt(int a, int b, int c) {
+ *     int left = a;
+ *     int right = b + c;
+ *     if (right == 0 || left % right != 0) {
+ *         return INVALID;
+ *     }
+ *     return left / right;
+ * }
+ * </pre>
+ */
+final class BytecodeCompiler {
+
+    private static final ClassDesc CD_TERM = ClassDesc.of(BytecodeCompiler.class.getPackageName(), "BytecodeTerm");
+    private static final ClassDesc CD_OPERATOR = ClassDesc.of(IntTernaryOperator.class.getName());
+    private static final MethodTypeDesc MTD_APPLY = MethodTypeDesc.of(CD_int, CD_int, CD_int, CD_int);
+    private static final int MAX_VARIABLES = 3;
+
+    // local variable slots: 0 = this, 1..3 = a, b, c
+    private static final int LEFT = MAX_VARIABLES + 1;
+    private static final int RIGHT = MAX_VARIABLES + 2;
+
+    static IntTernaryOperator compile(final Term term, final String... variables) {
+        if (variables.length > MAX_VARIABLES) {
+            throw new TermException("Unable to compile term. Too many variables: %d".formatted(variables.length));
+        }
+        byte[] bytes = ClassFile.of().build(CD_TERM, clb -> clb
+                .withFlags(ClassFile.ACC_FINAL | ClassFile.ACC_SYNTHETIC)
+                .withInterfaceSymbols(CD_OPERATOR)
+                .withMethodBody(INIT_NAME, MTD_void, ClassFile.ACC_PUBLIC, cob -> cob
+                        .aload(0)
+                        .invokespecial(CD_Object, INIT_NAME, MTD_void)
+                        .return_())
+                .withMethodBody("applyAsInt", MTD_APPLY, ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL,
+                        cob -> new Generator(cob, List.of(variables)).generate(term)));
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (IntTernaryOperator) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable t) {
+            throw new TermException("Unable to compile term '%s': %s".formatted(term.print(), t.getMessage()));
+        }
+    }
+
+    private static class Generator implements Term.Visitor {
+
+        private final CodeBuilder code;
+        private final List<String> variables;
+        private final List<Label> invalid;
+
+        Generator(final CodeBuilder code, final List<String> variables) {
+            this.code = code;
+            this.variables = variables;
+            this.invalid = new ArrayList<>();
+        }
+
+        void generate(final Term term) {
+            Term.walk(term, this);
+            code.ireturn();
+
+            // Each division has its own label, since the operand stack can differ between the divisions.
+            for (Label label : invalid) {
+                code.labelBinding(label);
+                code.loadConstant(IntTernaryOperator.INVALID);
+                code.ireturn();
+            }
+        }
+
+        @Override
+        public void leaf(final Node node) {
+            if (node instanceof Variable variable) {
+                int index = variables.indexOf(variable.name());
+                if (index == -1) {
+                    throw new TermException("Unable to compile term. No slot for variable %s".formatted(variable.name()));
+                }
+                code.iload(index + 1);
+            } else {
+                code.loadConstant(((Value) node).value());
+            }
+        }
+
+        @Override
+        public void postOrder(final Term term) {
+            switch (term.operator()) {
+                case PLUS -> code.iadd();
+                case MINUS -> code.isub();
+                case TIMES -> code.imul();
+                case DIVIDED -> divide();
+            }
+        }
+
+        private void divide() {
+            Label label = code.newLabel();
+            invalid.add(label);
+            code.istore(RIGHT)
+                    .istore(LEFT)
+                    .iload(RIGHT)
+                    .ifeq(label)
+                    .iload(LEFT)
+                    .iload(RIGHT)
+                    .irem()
+                    .ifne(label)
+                    .iload(LEFT)
+                    .iload(RIGHT)
+                    .idiv();
+        }
+    }
+
+    private BytecodeCompiler() {
+    }
+}
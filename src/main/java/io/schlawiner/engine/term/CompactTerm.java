@@ -0,0 +1,406 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static io.schlawiner.engine.term.Opcode.DIVIDE;
+import static io.schlawiner.engine.term.Opcode.VALUE;
+import static io.schlawiner.engine.term.Opcode.VARIABLE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An immutable {@link Term} encoded as a single byte array. The nodes are stored in post-order, so the children of a node
+ * always precede the node itself, and the structure of the tree follows from the arity of the nodes. Neither child nor
+ * parent links are stored; they are derived while scanning the nodes. All operations are linear scans over the array.
+ * Compact terms are immutable and can be shared between threads.
+ * <p>
+ * Each node starts with a byte which holds the node type in the lower three bits and an operand in the upper five bits.
+ * The operand of a value is the value itself if it's below {@value #EXTENDED}, otherwise the value follows in one to four
+ * bytes. The operand of a variable is the length of its UTF-8 encoded name, which follows the node byte. Operators have
+ * no operand.
+ * <p>
+ * Compact terms are meant for terms which are stored, e.g. as part of a result. On a 64-bit JVM with compressed references,
+ * {@code 6 * 10 + 3} takes 40 bytes as a compact term and 136 bytes as a {@link Term} tree.
+ *
+ * <pre>
+ * CompactTerm compact = Term.valueOf("(a + b) * c").compact();
+ * int result = compact.eval(new Assignment("a", 3), new Assignment("b", 4), new Assignment("c", 2));
+ * </pre>
+ */
+public final class CompactTerm {
+
+    // node types are opcodes
+    private static final int TYPE_MASK = 0x07;
+    private static final int OPERAND_SHIFT = 3;
+
+    /** Operands from here on don't fit into the node byte and are stored in {@code operand - EXTENDED + 1} extra bytes. */
+    private static final int EXTENDED = 28;
+
+    /** Parses an infix expression into a compact term. */
+    public static CompactTerm valueOf(final String expression) throws TermException {
+        return Term.valueOf(expression).compact();
+    }
+
+    private final byte[] code;
+
+    CompactTerm(final Term term) {
+        Encoder encoder = new Encoder();
+        Term.walk(term, encoder);
+        this.code = Arrays.copyOf(encoder.code, encoder.length);
+    }
+
+    /**
+     * Evaluates this term and returns the integer result. Variables must be bound via assignments.
+     *
+     * @throws TermException if a division is by zero or not exact, or if a variable is not assigned
+     */
+    public int eval(final Assignment... assignments) {
+        return eval(Assignment.byName(assignments), true).getAsInt();
+    }
+
+    /**
+     * Evaluates this term like {@link #eval(Assignment...)}, but returns an empty result instead of throwing an exception if
+     * a division is by zero or not exact.
+     *
+     * @throws TermException if a variable is not assigned
+     */
+    public OptionalInt tryEval(final Assignment... assignments) {
+        return eval(Assignment.byName(assignments), false);
+    }
+
+    /**
+     * Returns an empty result if a division is by zero or not exact and {@code strict} is false. Every int is a valid result,
+     * so no value can be used as marker.
+     */
+    private OptionalInt eval(final Map<String, Integer> assignments, final boolean strict) {
+        int[] stack = new int[code.length];
+        int top = -1;
+        int pc = 0;
+        while (pc < code.length) {
+            int node = code[pc++] & 0xff;
+            int type = node & TYPE_MASK;
+            int operand = node >>> OPERAND_SHIFT;
+            switch (type) {
+                case VALUE -> {
+                    stack[++top] = operand(pc, operand);
+                    pc += width(operand);
+                }
+                case VARIABLE -> {
+                    int length = operand(pc, operand);
+                    pc += width(operand);
+                    String name = new String(code, pc, length, UTF_8);
+                    pc += length;
+                    Integer value = assignments.get(name);
+                    if (value == null) {
+                        throw new TermException("Unable to eval term. Missing assignment %s".formatted(name));
+                    }
+                    stack[++top] = value;
+                }
+                default -> {
+                    int right = stack[top--];
+                    int left = stack[top];
+                    if (type == DIVIDE && !Opcode.exact(left, right)) {
+                        if (strict) {
+                            throw new TermException("Illegal division: " + left + " / " + right);
+                        }
+                        return OptionalInt.empty();
+                    }
+                    stack[top] = Opcode.apply(type, left, right);
+                }
+            }
+        }
+        return OptionalInt.of(stack[top]);
+    }
+
+    /**
+     * Prints this term as an infix expression. Variables are substituted with their assigned values if provided. The result
+     * is the same as {@link Term#print(Assignment...)} of the original term.
+     */
+    public String print(final Assignment... assignments) {
+        Map<String, Integer> values = Assignment.byName(assignments);
+        Structure structure = new Structure(code);
+        StringBuilder builder = new StringBuilder();
+        for (int leaf = 0; leaf < structure.leaves; leaf++) {
+            int node = structure.leafNodes[leaf];
+            boolean needsBracket = structure.needsBracket(node);
+            if (needsBracket && !structure.right[node]) {
+                builder.append("(");
+            }
+            int pc = structure.starts[node];
+            int operand = (code[pc] & 0xff) >>> OPERAND_SHIFT;
+            if (structure.types[node] == VALUE) {
+                builder.append(operand(pc + 1, operand));
+            } else {
+                int length = operand(pc + 1, operand);
+                String name = new String(code, pc + 1 + width(operand), length, UTF_8);
+                builder.append(values.containsKey(name) ? values.get(name) : name);
+            }
+            if (needsBracket && structure.right[node]) {
+                builder.append(")");
+            }
+            if (leaf < structure.leaves - 1) {
+                builder.append(" ").append(Opcode.operator(structure.types[structure.operatorNodes[leaf]])).append(" ");
+            }
+        }
+        return builder.toString();
+    }
+
+    /** Returns all integer values (literals) in this term from left to right. */
+    public int[] getValues() {
+        int[] values = new int[code.length];
+        int count = 0;
+        int pc = 0;
+        while (pc < code.length) {
+            int node = code[pc++] & 0xff;
+            int operand = node >>> OPERAND_SHIFT;
+            switch (node & TYPE_MASK) {
+                case VALUE -> {
+                    values[count++] = operand(pc, operand);
+                    pc += width(operand);
+                }
+                case VARIABLE -> pc += width(operand) + operand(pc, operand);
+                default -> {
+                    // operators have no operand
+                }
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /** Returns all operators in this term from left to right. */
+    public List<Operator> getOperators() {
+        Structure structure = new Structure(code);
+        List<Operator> operators = new ArrayList<>(structure.leaves - 1);
+        for (int i = 0; i < structure.leaves - 1; i++) {
+            operators.add(Opcode.operator(structure.types[structure.operatorNodes[i]]));
+        }
+        return operators;
+    }
+
+    /** Returns the names of all variables in this term from left to right. */
+    public List<String> getVariables() {
+        List<String> variables = new ArrayList<>();
+        int pc = 0;
+        while (pc < code.length) {
+            int node = code[pc++] & 0xff;
+            int operand = node >>> OPERAND_SHIFT;
+            switch (node & TYPE_MASK) {
+                case VALUE -> pc += width(operand);
+                case VARIABLE -> {
+                    int length = operand(pc, operand);
+                    pc += width(operand);
+                    variables.add(new String(code, pc, length, UTF_8));
+                    pc += length;
+                }
+                default -> {
+                    // operators have no operand
+                }
+            }
+        }
+        return variables;
+    }
+
+    /** Expands this compact term into a new, modifiable {@link Term} tree. */
+    public Term toTerm() {
+        Structure structure = new Structure(code);
+        Node[] nodes = new Node[structure.types.length];
+        boolean variables = false;
+        for (int i = 0; i < nodes.length; i++) {
+            int pc = structure.starts[i];
+            int operand = (code[pc] & 0xff) >>> OPERAND_SHIFT;
+            switch (structure.types[i]) {
+                case VALUE -> nodes[i] = new Value(operand(pc + 1, operand));
+                case VARIABLE -> {
+                    int length = operand(pc + 1, operand);
+                    nodes[i] = new Variable(new String(code, pc + 1 + width(operand), length, UTF_8));
+                    variables = true;
+                }
+                default -> {
+                    Term term = new Term(Opcode.operator(structure.types[i]));
+                    term.left(nodes[structure.lefts[i]]);
+                    term.right(nodes[i - 1]);
+                    nodes[i] = term;
+                }
+            }
+        }
+        Term root = (Term) nodes[nodes.length - 1];
+        root.hasVariables = variables;
+        return root;
+    }
+
+    /** Returns the number of bytes used to encode this term. */
+    int codeSize() {
+        return code.length;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof CompactTerm that && Arrays.equals(code, that.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(code);
+    }
+
+    @Override
+    public String toString() {
+        return print();
+    }
+
+    private int operand(final int pc, final int operand) {
+        return operand(code, pc, operand);
+    }
+
+    /** Decodes the operand of the node byte preceding {@code pc}. */
+    private static int operand(final byte[] code, final int pc, final int operand) {
+        if (operand < EXTENDED) {
+            return operand;
+        }
+        int value = 0;
+        for (int i = 0; i < width(operand); i++) {
+            value = (value << 8) | (code[pc + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static int width(final int operand) {
+        return operand < EXTENDED ? 0 : operand - EXTENDED + 1;
+    }
+
+    // ------------------------------------------------------ structure
+
+    /** The derived tree structure: node types, start offsets, child and parent links, and the in-order of the nodes. */
+    private static class Structure {
+
+        final int[] types;
+        final int[] starts;
+        final int[] lefts;
+        final int[] parents;
+        final boolean[] right;
+        final int[] leafNodes;
+        final int[] operatorNodes;
+        final int leaves;
+
+        Structure(final byte[] code) {
+            int nodes = 0;
+            int[] types = new int[code.length];
+            int[] starts = new int[code.length];
+            int pc = 0;
+            while (pc < code.length) {
+                int node = code[pc] & 0xff;
+                int type = node & TYPE_MASK;
+                int operand = node >>> OPERAND_SHIFT;
+                types[nodes] = type;
+                starts[nodes++] = pc++;
+                if (type == VALUE) {
+                    pc += width(operand);
+                } else if (type == VARIABLE) {
+                    pc += width(operand) + operand(code, pc, operand);
+                }
+            }
+            this.types = Arrays.copyOf(types, nodes);
+            this.starts = Arrays.copyOf(starts, nodes);
+            this.lefts = new int[nodes];
+            this.parents = new int[nodes];
+            this.right = new boolean[nodes];
+            this.leafNodes = new int[(nodes + 1) / 2];
+            this.operatorNodes = new int[nodes / 2];
+
+            // in post-order the right child directly precedes its parent, and the left child precedes the right subtree
+            int[] stack = new int[nodes];
+            int[] firstLeaf = new int[nodes];
+            int top = -1;
+            int leaf = 0;
+            parents[nodes - 1] = -1;
+            for (int i = 0; i < nodes; i++) {
+                if (this.types[i] == VALUE || this.types[i] == VARIABLE) {
+                    firstLeaf[i] = leaf;
+                    leafNodes[leaf++] = i;
+                } else {
+                    int r = stack[top--];
+                    int l = stack[top--];
+                    lefts[i] = l;
+                    parents[l] = i;
+                    parents[r] = i;
+                    right[r] = true;
+                    firstLeaf[i] = firstLeaf[l];
+                    operatorNodes[firstLeaf[r] - 1] = i;
+                }
+                stack[++top] = i;
+            }
+            this.leaves = leaf;
+        }
+
+        /** Same rule as {@link Term.PrintIterator}: brackets if the parent binds weaker than the grandparent. */
+        boolean needsBracket(final int node) {
+            int parent = parents[node];
+            if (parent != -1 && parents[parent] != -1) {
+                return Opcode.operator(types[parent]).precedence() < Opcode.operator(types[parents[parent]]).precedence();
+            }
+            return false;
+        }
+    }
+
+    private static class Encoder implements Term.Visitor {
+
+        private byte[] code = new byte[16];
+        private int length;
+
+        @Override
+        public void leaf(final Node node) {
+            if (node instanceof Variable variable) {
+                byte[] name = variable.name().getBytes(UTF_8);
+                add(VARIABLE, name.length);
+                for (byte b : name) {
+                    append(b);
+                }
+            } else {
+                add(VALUE, ((Value) node).value());
+            }
+        }
+
+        @Override
+        public void postOrder(final Term term) {
+            add(Opcode.of(term.operator()), 0);
+        }
+
+        private void add(final int type, final int operand) {
+            if (operand >= 0 && operand < EXTENDED) {
+                append(type | operand << OPERAND_SHIFT);
+            } else {
+                // negative values always take four bytes
+                int bytes = operand < 0 ? 4 : (32 - Integer.numberOfLeadingZeros(operand) + 7) / 8;
+                append(type | (EXTENDED + bytes - 1) << OPERAND_SHIFT);
+                for (int i = bytes - 1; i >= 0; i--) {
+                    append(operand >>> (8 * i));
+                }
+            }
+        }
+
+        private void append(final int b) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, 2 * length);
+            }
+            code[length++] = (byte) b;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.schlawiner.engine.term.Opcode.DIVIDE;
+import static io.schlawiner.engine.term.Opcode.VALUE;
+import static io.schlawiner.engine.term.Opcode.VARIABLE;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * A {@link Term} flattened into an array of int opcodes in reverse polish notation. Variables are resolved by their slot
+ * instead of their name. Compiled terms are immutable and can be shared between threads.
+ * <p>
+ * Compiled terms are meant for terms which are evaluated many times with different values. Use
+ * {@link #eval(int[], int[])} together with a stack of {@link #stackSize()} elements to evaluate the term without allocating
+ * any objects.
+ *
+ * <pre>
+ * CompiledTerm compiled = Term.valueOf("(a + b) * c").compile("a", "b", "c");
+ * int[] stack = new int[compiled.stackSize()];
+ * int result = compiled.eval(new int[] { 3, 4, 2 }, stack);
+ * </pre>
+ */
+public final class CompiledTerm {
+
+    private final int[] code;
+    private final List<String> variables;
+    private final int stackSize;
+
+    CompiledTerm(final Term term, final String... variables) {
+        List<String> slots = new ArrayList<>(List.of(variables));
+        if (slots.isEmpty()) {
+            for (Variable variable : term.getVariables()) {
+                if (!slots.contains(variable.name())) {
+                    slots.add(variable.name());
+                }
+            }
+        }
+        Compiler compiler = new Compiler(slots);
+        Term.walk(term, compiler);
+        this.code = compiler.code.stream().mapToInt(Integer::intValue).toArray();
+        this.variables = unmodifiableList(slots);
+        this.stackSize = compiler.maxDepth;
+    }
+
+    /** Returns the variable names in slot order. */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /** Returns the minimal size of the stack passed to {@link #eval(int[], int[])}. */
+    public int stackSize() {
+        return stackSize;
+    }
+
+    /** Evaluates this term. The values are assigned to the variables in slot order. */
+    public int eval(final int... values) {
+        return eval(values, new int[stackSize]);
+    }
+
+    /**
+     * Evaluates this term using the specified stack. The values are assigned to the variables in slot order. The stack must
+     * have at least {@link #stackSize()} elements and can be reused across calls.
+     *
+     * @throws TermException if a division is by zero or not exact
+     */
+    public int eval(final int[] values, final int[] stack) {
+        eval(values, stack, true);
+        return stack[0];
+    }
+
+    /**
+     * Same as {@link #eval(int[], int[])}, but returns {@code false} instead of throwing an exception if a division is by zero
+     * or not exact. If it returns {@code true}, the result is in {@code stack[0]}. Every int is a valid result, so the
+     * validity is returned separately. Meant for callers which evaluate many values and expect invalid divisions.
+     */
+    public boolean tryEval(final int[] values, final int[] stack) {
+        return eval(values, stack, false);
+    }
+
+    /** Leaves the result in {@code stack[0]}. Returns {@code false} if a division fails and {@code strict} is false. */
+    private boolean eval(final int[] values, final int[] stack, final boolean strict) {
+        if (values.length < variables.size()) {
+            throw new TermException("Unable to eval term. Missing values for %s".formatted(variables));
+        }
+        int top = -1;
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc++];
+            switch (opcode) {
+                case VALUE -> stack[++top] = code[pc++];
+                case VARIABLE -> stack[++top] = values[code[pc++]];
+                default -> {
+                    int right = stack[top--];
+                    int left = stack[top];
+                    if (opcode == DIVIDE && !Opcode.exact(left, right)) {
+                        if (strict) {
+                            throw new TermException("Illegal division: " + left + " / " + right);
+                        }
+                        return false;
+                    }
+                    stack[top] = Opcode.apply(opcode, left, right);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static class Compiler implements Term.Visitor {
+
+        private final List<String> slots;
+        private final List<Integer> code;
+        private int depth;
+        private int maxDepth;
+
+        Compiler(final List<String> slots) {
+            this.slots = slots;
+            this.code = new ArrayList<>();
+        }
+
+        @Override
+        public void leaf(final Node node) {
+            if (node instanceof Variable variable) {
+                int slot = slots.indexOf(variable.name());
+                if (slot == -1) {
+                    throw new TermException("Unable to compile term. No slot for variable %s".formatted(variable.name()));
+                }
+                code.add(VARIABLE);
+                code.add(slot);
+            } else {
+                code.add(VALUE);
+                code.add(((Value) node).value());
+            }
+            push();
+        }
+
+        @Override
+        public void postOrder(final Term term) {
+            code.add(Opcode.of(term.operator()));
+            depth--;
+        }
+
+        private void push() {
+            depth++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+/**
+ * Operation on three int values producing an int result. Implemented by the hidden classes which are generated by
+ * {@link Term#compileToBytecode(String...)}.
+ */
+@FunctionalInterface
+public interface IntTernaryOperator {
+
+    /** Result of {@link #applyAsInt(int, int, int)} if a division is by zero or not exact. */
+    int INVALID = Integer.MAX_VALUE;
+
+    /** Applies this operator. Returns {@link #INVALID} if a division is by zero or not exact. */
+    int applyAsInt(int a, int b, int c);
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+/**
+ * Opcodes shared by the encodings of {@link CompiledTerm}, {@link CompactTerm} and {@link TermGraph}, and the arithmetic used
+ * by all evaluators. Divisions must be exact: evaluators check {@link #exact(int, int)} before they divide and decide
+ * themselves how to report a division which isn't.
+ */
+final class Opcode {
+
+    static final int VALUE = 0;
+    static final int VARIABLE = 1;
+    static final int ADD = 2;
+    static final int SUBTRACT = 3;
+    static final int MULTIPLY = 4;
+    static final int DIVIDE = 5;
+
+    private static final Operator[] OPERATORS = { null, null, Operator.PLUS, Operator.MINUS, Operator.TIMES,
+            Operator.DIVIDED };
+
+    /** Returns the opcode of the operator. */
+    static int of(final Operator operator) {
+        return switch (operator) {
+            case PLUS -> ADD;
+            case MINUS -> SUBTRACT;
+            case TIMES -> MULTIPLY;
+            case DIVIDED -> DIVIDE;
+        };
+    }
+
+    /** Returns the operator of the opcode, or {@code null} for {@link #VALUE} and {@link #VARIABLE}. */
+    static Operator operator(final int opcode) {
+        return OPERATORS[opcode];
+    }
+
+    /** Returns {@code true} if {@code left / right} is neither by zero nor has a remainder. */
+    static boolean exact(final int left, final int right) {
+        return right != 0 && left % right == 0;
+    }
+
+    /** Applies the operator of the opcode. A division by zero returns 0, other divisions truncate. */
+    static int apply(final int opcode, final int left, final int right) {
+        return switch (opcode) {
+            case ADD -> left + right;
+            case SUBTRACT -> left - right;
+            case MULTIPLY -> left * right;
+            case DIVIDE -> right == 0 ? 0 : left / right;
+            default -> throw new IllegalArgumentException("Not an operator: %d".formatted(opcode));
+        };
+    }
+
+    private Opcode() {
+    }
+}
@@ -16,9 +16,10 @@
 package io.schlawiner.engine.term;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.OptionalInt;
 
 /**
  * An operator node in a binary expression tree. Represents an arithmetic expression that can be parsed from infix notation,
@@ -26,7 +27,8 @@ import java.util.Stack;
  *
  * <p>
  * Terms support named variables that are resolved at evaluation time via {@link Assignment}s. Division is integer-only and must
- * be exact (no remainder), otherwise a {@link TermException} is thrown.
+ * be exact (no remainder), otherwise a {@link TermException} is thrown, or {@link #tryEval(Assignment...)} returns an empty
+ * result.
  *
  * <p>
  * Example usage:
@@ -38,28 +40,62 @@ import java.util.Stack;
  */
 public final class Term implements Node {
 
-    /** Parses an infix expression into a {@link Term} tree. */
+    /** Maximum number of tokens accepted by {@link #valueOf(String)}. */
+    public static final int DEFAULT_MAX_TOKENS = 1024;
+
+    /** Parses an infix expression with at most {@value #DEFAULT_MAX_TOKENS} tokens into a {@link Term} tree. */
     public static Term valueOf(final String expression) throws TermException {
         return TermParser.parse(expression);
     }
 
+    /**
+     * Parses an infix expression into a {@link Term} tree. Numbers, variables, operators and brackets count as tokens.
+     * Expressions with more than {@code maxTokens} tokens are rejected before the tree is built.
+     *
+     * @throws TermException if the expression isn't a valid term or has more than {@code maxTokens} tokens
+     * @throws IllegalArgumentException if {@code maxTokens} is not positive
+     */
+    public static Term valueOf(final String expression, final int maxTokens) throws TermException {
+        return TermParser.parse(expression, maxTokens);
+    }
+
     private final Operator operator;
     private Node parent;
     private Node left;
     private Node right;
     boolean hasVariables;
+    private boolean frozen;
 
     Term(final Operator operator) {
         this.operator = operator;
         this.hasVariables = false;
     }
 
-    /** Evaluates this term and returns the integer result. Variables must be bound via assignments. */
+    /**
+     * Evaluates this term and returns the integer result. Variables must be bound via assignments.
+     *
+     * @throws TermException if a division is by zero or not exact, or if a variable is not assigned
+     */
     public int eval(final Assignment... assignments) {
         if (hasVariables && assignments.length == 0) {
             throw new TermException("Unable to eval term. No assignments for %s".formatted(getVariables()));
         }
-        return new EvalIterator().eval(this, Assignment.byName(assignments));
+        return new EvalIterator(true).eval(this, Assignment.byName(assignments));
+    }
+
+    /**
+     * Evaluates this term like {@link #eval(Assignment...)}, but returns an empty result instead of throwing an exception if
+     * a division is by zero or not exact.
+     *
+     * @throws TermException if a variable is not assigned
+     */
+    public OptionalInt tryEval(final Assignment... assignments) {
+        if (hasVariables && assignments.length == 0) {
+            throw new TermException("Unable to eval term. No assignments for %s".formatted(getVariables()));
+        }
+        EvalIterator iterator = new EvalIterator(false);
+        int result = iterator.eval(this, Assignment.byName(assignments));
+        return iterator.invalid ? OptionalInt.empty() : OptionalInt.of(result);
     }
 
     /** Prints this term as an infix expression. Variables are substituted with their assigned values if provided. */
@@ -67,11 +103,50 @@ public final class Term implements Node {
         return new PrintIterator().print(this, Assignment.byName(assignments));
     }
 
+    /**
+     * Compiles this term into a {@link CompiledTerm}. The variables are assigned to slots in the specified order. If no
+     * variables are specified, the slots follow the order in which the variables appear in this term.
+     *
+     * @throws TermException if this term contains a variable which is not in {@code variables}
+     */
+    public CompiledTerm compile(final String... variables) {
+        return new CompiledTerm(this, variables);
+    }
+
+    /**
+     * Compiles this term into a hidden class implementing {@link IntTernaryOperator}. The variables (at most three) are bound
+     * to the arguments of {@link IntTernaryOperator#applyAsInt(int, int, int)} in the specified order. Each call defines a
+     * new class, so compile a term once and reuse the result.
+     *
+     * @throws TermException if there are more than three variables or if this term contains a variable which is not in
+     *         {@code variables}
+     */
+    public IntTernaryOperator compileToBytecode(final String... variables) {
+        return BytecodeCompiler.compile(this, variables);
+    }
+
+    /**
+     * Analyzes this term in a single traversal. The analysis contains the values, operators and variables, the printed term
+     * and the result. Variables are substituted with their assigned values if provided. Never throws an exception.
+     */
+    public TermAnalysis analyze(final Assignment... assignments) {
+        return new TermAnalysis(this, assignments);
+    }
+
+    /** Encodes this term as an immutable {@link CompactTerm}. */
+    public CompactTerm compact() {
+        return new CompactTerm(this);
+    }
+
     @Override
     public String toString() {
         return print();
     }
 
+    Operator operator() {
+        return operator;
+    }
+
     boolean complete() {
         return left != null && right != null;
     }
@@ -98,6 +173,9 @@ public final class Term implements Node {
 
     @Override
     public void parent(final Node parent) {
+        if (frozen) {
+            throw new UnsupportedOperationException();
+        }
         this.parent = parent;
     }
 
@@ -108,6 +186,9 @@ public final class Term implements Node {
 
     @Override
     public void left(final Node left) {
+        if (frozen) {
+            throw new UnsupportedOperationException();
+        }
         this.left = left;
         this.left.parent(this);
     }
@@ -119,96 +200,182 @@ public final class Term implements Node {
 
     @Override
     public void right(final Node right) {
+        if (frozen) {
+            throw new UnsupportedOperationException();
+        }
         this.right = right;
         this.right.parent(this);
     }
 
+    /**
+     * Returns whether this term is frozen. The nodes of a frozen term can't be modified, and their setters throw an
+     * {@link UnsupportedOperationException}. Frozen terms are safe to share, e.g. by {@link TermCache}.
+     */
+    public boolean frozen() {
+        return frozen;
+    }
+
+    /** Freezes this term and all its nodes. Terms are frozen once they are complete, never during construction. */
+    void freeze() {
+        walk(this, new Visitor() {
+            @Override
+            public void leaf(final Node node) {
+                if (node instanceof Variable variable) {
+                    variable.freeze();
+                } else if (node instanceof Value value) {
+                    value.freeze();
+                }
+            }
+
+            @Override
+            public void postOrder(final Term term) {
+                term.frozen = true;
+            }
+        });
+    }
+
     // ------------------------------------------------------ iterators
 
-    static class EvalIterator {
+    /** Callbacks of {@link #walk(Term, Visitor)}. */
+    interface Visitor {
 
-        int eval(final Node node, final Map<String, Integer> assignments) {
-            Stack<Integer> stack = new Stack<>();
-            postOrder(node, stack, assignments);
-            return stack.pop();
+        /** Called for values and variables. */
+        void leaf(Node node);
+
+        /** Called for terms after the left and before the right subtree. */
+        default void inOrder(final Term term) {
         }
 
-        private void postOrder(final Node node, final Stack<Integer> stack, final Map<String, Integer> assignments) {
-            if (node != null) {
-                switch (node) {
-                    case Term term -> {
-                        postOrder(node.left(), stack, assignments);
-                        postOrder(node.right(), stack, assignments);
-                        int right = stack.pop();
-                        int left = stack.pop();
-                        int result = switch (term.operator) {
-                            case PLUS -> left + right;
-                            case MINUS -> left - right;
-                            case TIMES -> left * right;
-                            case DIVIDED -> {
-                                if (right == 0 || left % right != 0) {
-                                    throw new TermException("Illegal division: " + left + " / " + right);
-                                }
-                                yield left / right;
-                            }
-                        };
-                        stack.push(result);
-                    }
-                    case Variable variable -> {
-                        if (!assignments.containsKey(variable.name())) {
-                            throw new TermException("Unable to eval term. Missing assignment %s".formatted(variable.name()));
-                        }
-                        stack.push(assignments.get(variable.name()));
+        /** Called for terms after both subtrees. */
+        default void postOrder(final Term term) {
+        }
+    }
+
+    /**
+     * Walks the tree without recursion, following the parent links back up. Doesn't use any memory besides the visitor, so
+     * the depth of the tree is only limited by the heap.
+     */
+    static void walk(final Term root, final Visitor visitor) {
+        Node node = root;
+        Node from = null; // the child we're coming back from, null while descending
+        while (true) {
+            if (node instanceof Term term) {
+                if (from == null && term.left != null) {
+                    node = term.left;
+                    continue;
+                }
+                if (from == null || from == term.left) {
+                    visitor.inOrder(term);
+                    if (term.right != null) {
+                        node = term.right;
+                        from = null;
+                        continue;
                     }
-                    case Value value -> stack.push(value.value());
                 }
+                visitor.postOrder(term);
+            } else {
+                visitor.leaf(node);
+            }
+            if (node == root) {
+                return;
+            }
+            from = node;
+            node = node.parent();
+        }
+    }
+
+    static class EvalIterator implements Visitor {
+
+        private final boolean strict;
+        private boolean invalid;
+        private Map<String, Integer> assignments;
+        private int[] stack;
+        private int top;
+
+        EvalIterator(final boolean strict) {
+            this.strict = strict;
+        }
+
+        int eval(final Term term, final Map<String, Integer> assignments) {
+            this.assignments = assignments;
+            this.stack = new int[8];
+            this.top = -1;
+            walk(term, this);
+            return stack[top];
+        }
+
+        @Override
+        public void leaf(final Node node) {
+            if (node instanceof Variable variable) {
+                if (!assignments.containsKey(variable.name())) {
+                    throw new TermException("Unable to eval term. Missing assignment %s".formatted(variable.name()));
+                }
+                push(assignments.get(variable.name()));
+            } else if (node instanceof Value value) {
+                push(value.value());
             }
         }
+
+        @Override
+        public void postOrder(final Term term) {
+            int right = stack[top--];
+            int left = stack[top];
+            if (term.operator == Operator.DIVIDED && !Opcode.exact(left, right)) {
+                if (strict) {
+                    throw new TermException("Illegal division: " + left + " / " + right);
+                }
+                // the result doesn't matter, it's discarded
+                invalid = true;
+            }
+            stack[top] = Opcode.apply(Opcode.of(term.operator), left, right);
+        }
+
+        private void push(final int value) {
+            if (top + 1 == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[++top] = value;
+        }
     }
 
-    static class PrintIterator {
+    static class PrintIterator implements Visitor {
+
+        private Map<String, Integer> assignments;
+        private StringBuilder builder;
 
-        String print(final Node node, final Map<String, Integer> assignments) {
-            StringBuilder builder = new StringBuilder();
-            inOrder(node, assignments, builder);
+        String print(final Term term, final Map<String, Integer> assignments) {
+            this.assignments = assignments;
+            this.builder = new StringBuilder();
+            walk(term, this);
             return builder.toString();
         }
 
-        private void inOrder(final Node node, final Map<String, Integer> assignments, final StringBuilder builder) {
-            if (node != null) {
-                inOrder(node.left(), assignments, builder);
-                switch (node) {
-                    case Term term -> builder.append(" ").append(term.operator).append(" ");
-                    case Variable variable -> {
-                        boolean needsBracket = needsBracket(node);
-                        if (needsBracket && node == node.parent().left()) {
-                            builder.append("(");
-                        }
-                        if (assignments.containsKey(variable.name())) {
-                            builder.append(assignments.get(variable.name()));
-                        } else {
-                            builder.append(variable.name());
-                        }
-                        if (needsBracket && node == node.parent().right()) {
-                            builder.append(")");
-                        }
-                    }
-                    case Value value -> {
-                        boolean needsBracket = needsBracket(node);
-                        if (needsBracket && node == node.parent().left()) {
-                            builder.append("(");
-                        }
-                        builder.append(value.value());
-                        if (needsBracket && node == node.parent().right()) {
-                            builder.append(")");
-                        }
-                    }
+        @Override
+        public void leaf(final Node node) {
+            boolean needsBracket = needsBracket(node);
+            if (needsBracket && node == node.parent().left()) {
+                builder.append("(");
+            }
+            if (node instanceof Variable variable) {
+                if (assignments.containsKey(variable.name())) {
+                    builder.append(assignments.get(variable.name()));
+                } else {
+                    builder.append(variable.name());
                 }
-                inOrder(node.right(), assignments, builder);
+            } else if (node instanceof Value value) {
+                builder.append(value.value());
+            }
+            if (needsBracket && node == node.parent().right()) {
+                builder.append(")");
             }
         }
 
-        private boolean needsBracket(final Node node) {
+        @Override
+        public void inOrder(final Term term) {
+            builder.append(" ").append(term.operator).append(" ");
+        }
+
+        static boolean needsBracket(final Node node) {
             if (node.parent() instanceof Term parent && node.parent().parent() instanceof Term) {
                 Term grandparent = (Term) parent.parent();
                 return parent.operator.precedence() < grandparent.operator.precedence();
@@ -221,18 +388,12 @@ public final class Term implements Node {
 
         int[] values(final Term term) {
             List<Integer> numbers = new ArrayList<>();
-            inOrder(term, numbers);
-            return numbers.stream().mapToInt(Integer::intValue).toArray();
-        }
-
-        private void inOrder(final Node node, final List<Integer> numbers) {
-            if (node != null) {
-                inOrder(node.left(), numbers);
+            walk(term, node -> {
                 if (node instanceof Value v) {
                     numbers.add(v.value());
                 }
-                inOrder(node.right(), numbers);
-            }
+            });
+            return numbers.stream().mapToInt(Integer::intValue).toArray();
         }
     }
 
@@ -240,36 +401,29 @@ public final class Term implements Node {
 
         List<Variable> variables(final Term term) {
             List<Variable> variables = new ArrayList<>();
-            inOrder(term, variables);
-            return variables;
-        }
-
-        private void inOrder(final Node node, final List<Variable> variables) {
-            if (node != null) {
-                inOrder(node.left(), variables);
+            walk(term, node -> {
                 if (node instanceof Variable v) {
                     variables.add(v);
                 }
-                inOrder(node.right(), variables);
-            }
+            });
+            return variables;
         }
     }
 
     static class GetOperatorsIterator {
         List<Operator> operators(final Term term) {
             List<Operator> operators = new ArrayList<>();
-            inOrder(term, operators);
-            return operators;
-        }
+            walk(term, new Visitor() {
+                @Override
+                public void leaf(final Node node) {
+                }
 
-        private void inOrder(final Node node, final List<Operator> operators) {
-            if (node != null) {
-                inOrder(node.left(), operators);
-                if (node instanceof Term t) {
+                @Override
+                public void inOrder(final Term t) {
                     operators.add(t.operator);
                 }
-                inOrder(node.right(), operators);
-            }
+            });
+            return operators;
         }
     }
 }
@@ -0,0 +1,210 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * The result of a single traversal of a {@link Term}: the values, operators and variables from left to right, the printed
+ * term and the result of the evaluation. Meant for code which needs several of these, e.g. to validate and score a term
+ * submitted by a player, without walking the tree for each of them.
+ * <p>
+ * Creating an analysis never throws an exception. If a division is by zero or not exact, the analysis is not
+ * {@linkplain #valid() valid}, and if a variable is not assigned, it is not {@linkplain #resolved() resolved}. In both cases
+ * {@link #result()} throws the exception {@link Term#eval(Assignment...)} would have thrown.
+ *
+ * <pre>
+ * TermAnalysis analysis = Term.valueOf("6 * 10 + 3").analyze();
+ * int[] values = analysis.values(); // [6, 10, 3]
+ * int result = analysis.result(); // 63
+ * </pre>
+ */
+public final class TermAnalysis {
+
+    private final Term term;
+    private final int[] values;
+    private final List<Operator> operators;
+    private final List<Variable> variables;
+    private final String print;
+    private final int result;
+    private final boolean valid;
+    private final boolean resolved;
+    private final String error;
+
+    TermAnalysis(final Term term, final Assignment... assignments) {
+        Analyzer analyzer = new Analyzer(Assignment.byName(assignments));
+        int result = analyzer.analyze(term);
+        this.term = term;
+        this.values = Arrays.copyOf(analyzer.values, analyzer.valueCount);
+        this.operators = unmodifiableList(analyzer.operators);
+        this.variables = unmodifiableList(analyzer.variables);
+        this.print = analyzer.print.toString();
+        this.result = result;
+        this.valid = !analyzer.invalidDivision;
+        this.resolved = !analyzer.missingAssignment;
+        this.error = analyzer.error;
+    }
+
+    public Term term() {
+        return term;
+    }
+
+    /** Returns all integer values (literals) in the term from left to right. */
+    public int[] values() {
+        return values.clone();
+    }
+
+    /** Returns all operators in the term from left to right. */
+    public List<Operator> operators() {
+        return operators;
+    }
+
+    /** Returns all variables in the term from left to right. */
+    public List<Variable> variables() {
+        return variables;
+    }
+
+    /** Returns the term as printed by {@link Term#print(Assignment...)}. */
+    public String print() {
+        return print;
+    }
+
+    /**
+     * Returns the result of the term.
+     *
+     * @throws TermException if a division is by zero or not exact, or if a variable is not assigned
+     */
+    public int result() {
+        if (error != null) {
+            throw new TermException(error);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code false} if a division is by zero or not exact. If a variable is not assigned, the divisions after it are
+     * not checked.
+     */
+    public boolean valid() {
+        return valid;
+    }
+
+    /** Returns {@code false} if a variable is not assigned. */
+    public boolean resolved() {
+        return resolved;
+    }
+
+    @Override
+    public String toString() {
+        return print;
+    }
+
+    private static class Analyzer implements Term.Visitor {
+
+        private final Map<String, Integer> assignments;
+        private final List<Operator> operators;
+        private final List<Variable> variables;
+        private final StringBuilder print;
+        private int[] values;
+        private int valueCount;
+        private int[] stack;
+        private int top;
+        private boolean invalidDivision;
+        private boolean missingAssignment;
+        private String error;
+
+        Analyzer(final Map<String, Integer> assignments) {
+            this.assignments = assignments;
+            this.operators = new ArrayList<>();
+            this.variables = new ArrayList<>();
+            this.print = new StringBuilder();
+            this.values = new int[4];
+            this.stack = new int[4];
+            this.top = -1;
+        }
+
+        /** Walks the term and returns its result. */
+        int analyze(final Term term) {
+            Term.walk(term, this);
+            return stack[top];
+        }
+
+        @Override
+        public void leaf(final Node node) {
+            boolean needsBracket = Term.PrintIterator.needsBracket(node);
+            if (needsBracket && node == node.parent().left()) {
+                print.append("(");
+            }
+            if (node instanceof Variable variable) {
+                variables.add(variable);
+                Integer value = assignments.get(variable.name());
+                if (value != null) {
+                    print.append(value);
+                    push(value);
+                } else {
+                    if (error == null) {
+                        error = "Unable to eval term. Missing assignment %s".formatted(variable.name());
+                    }
+                    missingAssignment = true;
+                    print.append(variable.name());
+                    push(0);
+                }
+            } else if (node instanceof Value value) {
+                if (valueCount == values.length) {
+                    values = Arrays.copyOf(values, 2 * valueCount);
+                }
+                values[valueCount++] = value.value();
+                print.append(value.value());
+                push(value.value());
+            }
+            if (needsBracket && node == node.parent().right()) {
+                print.append(")");
+            }
+        }
+
+        @Override
+        public void inOrder(final Term term) {
+            operators.add(term.operator());
+            print.append(" ").append(term.operator()).append(" ");
+        }
+
+        @Override
+        public void postOrder(final Term term) {
+            int right = stack[top--];
+            int left = stack[top];
+            // divisions after a missing assignment aren't checked, their operands might be unknown
+            if (term.operator() == Operator.DIVIDED && !missingAssignment && !Opcode.exact(left, right)) {
+                if (error == null) {
+                    error = "Illegal division: " + left + " / " + right;
+                }
+                invalidDivision = true;
+            }
+            stack[top] = Opcode.apply(Opcode.of(term.operator()), left, right);
+        }
+
+        private void push(final int value) {
+            if (top + 1 == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[++top] = value;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import io.schlawiner.engine.util.BoundedCache;
+
+/**
+ * Cache in front of {@link Term#valueOf(String)}. Expressions are normalized before the lookup, so expressions which only
+ * differ in whitespace like {@code "6*10+3"} and {@code "6 * 10 + 3"} share the same entry. The cache is a
+ * {@link BoundedCache}, which evicts the least recently used entry. Invalid expressions aren't cached.
+ * <p>
+ * The returned terms are {@linkplain Term#frozen() frozen}: they are shared between all callers and any attempt to modify
+ * their nodes throws an {@link UnsupportedOperationException}. Instances are thread-safe and meant to be shared, e.g. by all
+ * games of a JVM. Concurrent misses for the same expression might parse it more than once, but all callers get the same
+ * instance.
+ */
+public final class TermCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final BoundedCache<String, Term> cache;
+
+    /** Creates a cache with {@value #DEFAULT_MAXIMUM_SIZE} entries. */
+    public TermCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public TermCache(final int maximumSize) {
+        this.cache = new BoundedCache<>(maximumSize);
+    }
+
+    /**
+     * Returns the frozen term for the specified expression. Parses the expression if it's not in the cache.
+     *
+     * @throws TermException if the expression isn't a valid term
+     */
+    public Term valueOf(final String expression) throws TermException {
+        if (expression == null || expression.isBlank()) {
+            throw new TermException("Empty term");
+        }
+        return cache.get(TermParser.normalize(expression), key -> {
+            Term parsed = TermParser.parse(expression);
+            parsed.freeze();
+            return parsed;
+        });
+    }
+
+    /** Removes all entries. Doesn't reset the counters. */
+    public void clear() {
+        cache.clear();
+    }
+
+    /** Returns the current number of entries. */
+    public int size() {
+        return cache.size();
+    }
+
+    public int maximumSize() {
+        return cache.maximumSize();
+    }
+
+    /** Returns the number of lookups which were answered from the cache. */
+    public long hits() {
+        return cache.hits();
+    }
+
+    /** Returns the number of lookups which had to parse the expression, including invalid expressions. */
+    public long misses() {
+        return cache.misses();
+    }
+
+    /** Returns the number of entries which were removed because the cache was full. */
+    public long evictions() {
+        return cache.evictions();
+    }
+
+    /** Returns the ratio of hits to all lookups, or 0 if there were no lookups yet. */
+    public double hitRate() {
+        return cache.hitRate();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.schlawiner.engine.term.Opcode.ADD;
+import static io.schlawiner.engine.term.Opcode.DIVIDE;
+import static io.schlawiner.engine.term.Opcode.MULTIPLY;
+import static io.schlawiner.engine.term.Opcode.VALUE;
+import static io.schlawiner.engine.term.Opcode.VARIABLE;
+
+/**
+ * Several {@link Term}s merged into one directed acyclic graph with shared subexpressions. Structurally equal subterms of
+ * all terms are represented by a single node, and the operands of {@code +} and {@code *} are ordered, so {@code a + b} and
+ * {@code b + a} share a node, too. Evaluating the graph computes each node exactly once, in topological order.
+ * <p>
+ * A non-exact division or a division by zero doesn't throw a {@link TermException}. Instead the node is flagged as invalid
+ * and the flag is propagated to all nodes depending on it. The flag of each term is returned next to its result, since
+ * every int is a valid result. Graphs are immutable and can be shared between threads, the {@link Registers} used for the
+ * evaluation can't.
+ *
+ * <pre>
+ * TermGraph graph = TermGraph.of(List.of(Term.valueOf("a + b - c"), Term.valueOf("(a + b) * c")), "a", "b", "c");
+ * TermGraph.Registers registers = graph.registers();
+ * int[] results = new int[graph.terms()];
+ * boolean[] valid = new boolean[graph.terms()];
+ * graph.eval(new int[] { 3, 4, 2 }, registers, results, valid); // results = [5, 14], valid = [true, true]
+ * </pre>
+ */
+public final class TermGraph {
+
+    /**
+     * Merges the specified terms into one graph. The variables are assigned to slots in the specified order.
+     *
+     * @throws TermException if a term contains a variable which is not in {@code variables}
+     */
+    public static TermGraph of(final List<Term> terms, final String... variables) {
+        Builder builder = new Builder(List.of(variables));
+        int[] roots = new int[terms.size()];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = builder.node(terms.get(i));
+        }
+        return new TermGraph(builder, roots, variables);
+    }
+
+    private final int[] opcodes;
+    private final int[] lefts;
+    private final int[] rights;
+    private final int[] roots;
+    private final List<String> variables;
+
+    private TermGraph(final Builder builder, final int[] roots, final String[] variables) {
+        int size = builder.opcodes.size();
+        this.opcodes = new int[size];
+        this.lefts = new int[size];
+        this.rights = new int[size];
+        for (int i = 0; i < size; i++) {
+            opcodes[i] = builder.opcodes.get(i);
+            lefts[i] = builder.lefts.get(i);
+            rights[i] = builder.rights.get(i);
+        }
+        this.roots = roots;
+        this.variables = List.of(variables);
+    }
+
+    /** Returns the variable names in slot order. */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /** Returns the number of terms merged into this graph. */
+    public int terms() {
+        return roots.length;
+    }
+
+    /**
+     * Returns the number of distinct nodes, i.e. the number of values computed by
+     * {@link #eval(int[], Registers, int[], boolean[])}.
+     */
+    public int size() {
+        return opcodes.length;
+    }
+
+    /** Returns new registers for {@link #eval(int[], Registers, int[], boolean[])}. */
+    public Registers registers() {
+        return new Registers(opcodes.length);
+    }
+
+    /**
+     * Evaluates all terms of this graph. The values are assigned to the variables in slot order. The result of the term at
+     * index {@code i} is written to {@code results[i]}. {@code valid[i]} is {@code false} if the term contains a division
+     * which is by zero or not exact, its result is meaningless then. The registers and the arrays can be reused across calls.
+     */
+    public void eval(final int[] values, final Registers registers, final int[] results, final boolean[] valid) {
+        if (values.length < variables.size()) {
+            throw new TermException("Unable to eval graph. Missing values for %s".formatted(variables));
+        }
+        int[] nodes = registers.values;
+        boolean[] invalid = registers.invalid;
+        for (int n = 0; n < opcodes.length; n++) {
+            switch (opcodes[n]) {
+                case VALUE -> {
+                    nodes[n] = lefts[n];
+                    invalid[n] = false;
+                }
+                case VARIABLE -> {
+                    nodes[n] = values[lefts[n]];
+                    invalid[n] = false;
+                }
+                default -> {
+                    int left = nodes[lefts[n]];
+                    int right = nodes[rights[n]];
+                    nodes[n] = Opcode.apply(opcodes[n], left, right);
+                    invalid[n] = invalid[lefts[n]] || invalid[rights[n]]
+                            || opcodes[n] == DIVIDE && !Opcode.exact(left, right);
+                }
+            }
+        }
+        for (int i = 0; i < roots.length; i++) {
+            results[i] = nodes[roots[i]];
+            valid[i] = !invalid[roots[i]];
+        }
+    }
+
+    /** Scratch space holding the value and the validity of each node. */
+    public static final class Registers {
+
+        private final int[] values;
+        private final boolean[] invalid;
+
+        private Registers(final int size) {
+            this.values = new int[size];
+            this.invalid = new boolean[size];
+        }
+    }
+
+    private static class Builder implements Term.Visitor {
+
+        private final List<String> slots;
+        private final List<Integer> opcodes;
+        private final List<Integer> lefts;
+        private final List<Integer> rights;
+        private final Map<Key, Integer> nodes;
+        // node indices of the subtrees which have been walked, but not yet combined
+        private int[] stack;
+        private int top;
+
+        Builder(final List<String> slots) {
+            this.slots = slots;
+            this.opcodes = new ArrayList<>();
+            this.lefts = new ArrayList<>();
+            this.rights = new ArrayList<>();
+            this.nodes = new HashMap<>();
+            this.stack = new int[8];
+        }
+
+        /** Returns the node of the specified term, adding it and its children if necessary. */
+        int node(final Term term) {
+            top = -1;
+            Term.walk(term, this);
+            return stack[top];
+        }
+
+        @Override
+        public void leaf(final Node node) {
+            if (node instanceof Variable variable) {
+                int slot = slots.indexOf(variable.name());
+                if (slot == -1) {
+                    throw new TermException("Unable to compile term. No slot for variable %s".formatted(variable.name()));
+                }
+                push(add(VARIABLE, slot, 0));
+            } else {
+                push(add(VALUE, ((Value) node).value(), 0));
+            }
+        }
+
+        @Override
+        public void postOrder(final Term term) {
+            int right = stack[top--];
+            int left = stack[top--];
+            int opcode = Opcode.of(term.operator());
+            if ((opcode == ADD || opcode == MULTIPLY) && left > right) {
+                push(add(opcode, right, left));
+            } else {
+                push(add(opcode, left, right));
+            }
+        }
+
+        private void push(final int node) {
+            if (++top == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[top] = node;
+        }
+
+        private int add(final int opcode, final int left, final int right) {
+            // children are always added before their parents, so the node indices are in topological order
+            return nodes.computeIfAbsent(new Key(opcode, left, right), key -> {
+                opcodes.add(opcode);
+                lefts.add(left);
+                rights.add(right);
+                return opcodes.size() - 1;
+            });
+        }
+    }
+
+    private record Key(int opcode, int left, int right) {
+    }
+}
@@ -15,46 +15,239 @@
  */
 package io.schlawiner.engine.term;
 
-import static io.schlawiner.engine.term.InfixToRPN.infixToRPN;
+import java.util.Arrays;
 
 /**
- * Parses infix expressions into {@link Term} trees. Delegates to {@link InfixToRPN} for tokenization and {@link TermBuilder}
- * for tree construction.
+ * Parses infix expressions into {@link Term} trees. The parser reads the expression in a single pass and builds the tree
+ * directly, using the operator-precedence (shunting-yard) algorithm with two array-based stacks: one for operands and one
+ * for pending operators and opening brackets. There are no intermediate token strings, and the parser doesn't recurse, so
+ * deeply nested brackets can't overflow the call stack.
+ * <p>
+ * Numbers are sequences of digits. Any other sequence of characters which are neither whitespace, brackets nor operators is
+ * a variable. Operators of the same precedence are left-associative.
  */
 final class TermParser {
 
-    /** Parses the given infix expression and returns the root {@link Term} of the expression tree. */
+    // pending entries on the operator stack, besides the operators themselves
+    private static final int BRACKET = -1;
+    private static final Operator[] OPERATORS = Operator.values();
+
+    /** Parses the given infix expression with at most {@link Term#DEFAULT_MAX_TOKENS} tokens. */
     static Term parse(final String expression) {
-        if (expression == null || expression.trim().isEmpty()) {
+        return parse(expression, Term.DEFAULT_MAX_TOKENS);
+    }
+
+    /**
+     * Parses the given infix expression and returns the root {@link Term} of the expression tree. Expressions with more than
+     * {@code maxTokens} numbers, variables, operators and brackets are rejected before any node is created.
+     *
+     * @throws IllegalArgumentException if {@code maxTokens} is not positive
+     */
+    static Term parse(final String expression, final int maxTokens) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of tokens: %d".formatted(maxTokens));
+        }
+        if (expression == null || expression.isBlank()) {
             throw new TermException("Empty term");
         }
+        // an expression can't have more tokens than characters
+        if (expression.length() > maxTokens && tokens(expression) > maxTokens) {
+            throw new TermException("Term exceeds %d tokens".formatted(maxTokens));
+        }
+        return new TermParser(expression).parse();
+    }
 
-        String[] rpn = infixToRPN(expression);
-        if (rpn.length == 0) {
-            throw new TermException("Invalid term: '%s'".formatted(expression));
+    /** Counts the tokens of the expression without validating it. */
+    static int tokens(final CharSequence expression) {
+        int tokens = 0;
+        boolean operand = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (isOperand(c)) {
+                if (!operand) {
+                    tokens++;
+                }
+                operand = true;
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+                operand = false;
+            }
         }
+        return tokens;
+    }
 
-        TermBuilder termBuilder = new TermBuilder(expression);
-        for (int i = rpn.length - 1; i >= 0; i--) {
-            String token = rpn[i];
-            if (Operator.isOperator(token)) {
-                termBuilder.op(Operator.toOperator(token));
+    /**
+     * Removes all whitespace which doesn't change the meaning of the expression. Whitespace between two operands is kept as a
+     * single blank, so that {@code "1 2"} stays invalid instead of becoming {@code "12"}. Expressions which only differ in
+     * whitespace have the same normalized form.
+     */
+    static String normalize(final String expression) {
+        StringBuilder builder = new StringBuilder(expression.length());
+        boolean blank = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                blank = true;
+            } else {
+                if (blank && isOperand(c) && !builder.isEmpty() && isOperand(builder.charAt(builder.length() - 1))) {
+                    builder.append(' ');
+                }
+                builder.append(c);
+                blank = false;
+            }
+        }
+        return builder.toString();
+    }
+
+    private final CharSequence expression;
+    private Node[] operands;
+    private int operandCount;
+    private int[] operators;
+    private int operatorCount;
+    private boolean variables;
+
+    private TermParser(final CharSequence expression) {
+        this.expression = expression;
+        this.operands = new Node[8];
+        this.operators = new int[8];
+    }
+
+    private Term parse() {
+        boolean expectOperand = true;
+        int length = expression.length();
+        int i = 0;
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                if (!expectOperand) {
+                    throw invalid();
+                }
+                pushOperator(BRACKET);
+                i++;
+            } else if (c == ')') {
+                if (expectOperand) {
+                    throw invalid();
+                }
+                while (operatorCount > 0 && operators[operatorCount - 1] != BRACKET) {
+                    reduce();
+                }
+                if (operatorCount == 0) {
+                    throw invalid();
+                }
+                operatorCount--;
+                expectOperand = false;
+                i++;
             } else {
-                try {
-                    termBuilder.val(Integer.parseInt(token));
-                } catch (NumberFormatException e) {
-                    termBuilder.var(token);
+                Operator operator = operator(c);
+                if (operator != null) {
+                    if (expectOperand) {
+                        throw invalid();
+                    }
+                    while (operatorCount > 0 && operators[operatorCount - 1] != BRACKET
+                            && OPERATORS[operators[operatorCount - 1]].precedence() >= operator.precedence()) {
+                        reduce();
+                    }
+                    pushOperator(operator.ordinal());
+                    expectOperand = true;
+                    i++;
+                } else {
+                    if (!expectOperand) {
+                        throw invalid();
+                    }
+                    i = operand(i);
+                    expectOperand = false;
                 }
             }
         }
 
-        Term term = termBuilder.build();
-        if (!term.complete()) {
-            throw new TermException("Invalid term: '%s'".formatted(expression));
+        if (expectOperand) {
+            throw invalid();
+        }
+        while (operatorCount > 0) {
+            if (operators[operatorCount - 1] == BRACKET) {
+                throw invalid();
+            }
+            reduce();
         }
+        if (operandCount != 1 || !(operands[0] instanceof Term term)) {
+            throw invalid();
+        }
+        term.hasVariables = variables;
         return term;
     }
 
-    private TermParser() {
+    /** Reads the number or variable starting at {@code start} and returns the index after it. */
+    private int operand(final int start) {
+        int length = expression.length();
+        int end = start;
+        boolean digits = true;
+        long value = 0;
+        while (end < length && isOperand(expression.charAt(end))) {
+            char c = expression.charAt(end);
+            if (digits && c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                // numbers which don't fit into an int are variables, like Integer.parseInt() would reject them
+                digits = value <= Integer.MAX_VALUE;
+            } else {
+                digits = false;
+            }
+            end++;
+        }
+        if (digits) {
+            pushOperand(new Value((int) value));
+        } else {
+            variables = true;
+            pushOperand(new Variable(expression.subSequence(start, end).toString()));
+        }
+        return end;
+    }
+
+    private void reduce() {
+        Operator operator = OPERATORS[operators[--operatorCount]];
+        if (operandCount < 2) {
+            throw invalid();
+        }
+        Node right = operands[--operandCount];
+        Node left = operands[--operandCount];
+        Term term = new Term(operator);
+        term.left(left);
+        term.right(right);
+        pushOperand(term);
+    }
+
+    private void pushOperand(final Node node) {
+        if (operandCount == operands.length) {
+            operands = Arrays.copyOf(operands, 2 * operandCount);
+        }
+        operands[operandCount++] = node;
+    }
+
+    private void pushOperator(final int operator) {
+        if (operatorCount == operators.length) {
+            operators = Arrays.copyOf(operators, 2 * operatorCount);
+        }
+        operators[operatorCount++] = operator;
+    }
+
+    private TermException invalid() {
+        return new TermException("Invalid term: '%s'".formatted(expression));
+    }
+
+    private static Operator operator(final char c) {
+        return switch (c) {
+            case '+' -> Operator.PLUS;
+            case '-' -> Operator.MINUS;
+            case '*' -> Operator.TIMES;
+            case '/' -> Operator.DIVIDED;
+            default -> null;
+        };
+    }
+
+    private static boolean isOperand(final char c) {
+        return !Character.isWhitespace(c) && c != '(' && c != ')' && operator(c) == null;
     }
 }
@@ -20,6 +20,7 @@ final class Value implements Node {
 
     private final int value;
     private Node parent;
+    private boolean frozen;
 
     Value(final int value) {
         this.value = value;
@@ -36,6 +37,9 @@ final class Value implements Node {
 
     @Override
     public void parent(final Node parent) {
+        if (frozen) {
+            throw new UnsupportedOperationException();
+        }
         this.parent = parent;
     }
 
@@ -58,4 +62,8 @@ final class Value implements Node {
     public void right(final Node right) {
         throw new UnsupportedOperationException();
     }
+
+    void freeze() {
+        frozen = true;
+    }
 }
@@ -20,6 +20,7 @@ public final class Variable implements Node {
 
     private final String name;
     private Node parent;
+    private boolean frozen;
 
     Variable(final String name) {
         this.name = name;
@@ -36,6 +37,9 @@ public final class Variable implements Node {
 
     @Override
     public void parent(final Node parent) {
+        if (frozen) {
+            throw new UnsupportedOperationException();
+        }
         this.parent = parent;
     }
 
@@ -58,4 +62,8 @@ public final class Variable implements Node {
     public void right(final Node right) {
         throw new UnsupportedOperationException();
     }
+
+    void freeze() {
+        frozen = true;
+    }
 }
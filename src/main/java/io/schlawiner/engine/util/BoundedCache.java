@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache which evicts the least recently used entry. Counts hits, misses and evictions.
+ * <p>
+ * Instances are thread-safe. The entries are split into up to {@value #MAX_STRIPES} stripes with their own lock, so that
+ * lookups of different keys rarely wait for each other. Each stripe holds at least {@value #MIN_STRIPE_SIZE} entries and
+ * evicts its least recently used entry, so small caches have a single stripe and an exact LRU order. Values are loaded
+ * outside the lock: concurrent misses for the same key might load the value more than once, but all callers get the same
+ * instance.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class BoundedCache<K, V> {
+
+    public static final int MAX_STRIPES = 16;
+    public static final int MIN_STRIPE_SIZE = 64;
+
+    private final int maximumSize;
+    private final Stripe<K, V>[] stripes;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid maximum size: %d".formatted(maximumSize));
+        }
+        this.maximumSize = maximumSize;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        // a power of two, so that the stripe is picked by masking the hash
+        int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, maximumSize / MIN_STRIPE_SIZE)));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            // the first stripes take the remainder, so that the sizes add up to the maximum size
+            stripes[i] = new Stripe<>(maximumSize / count + (i < maximumSize % count ? 1 : 0), evictions);
+        }
+    }
+
+    /**
+     * Returns the value of the key. If there's no value, it's loaded outside the lock and added. If the loader throws an
+     * exception, nothing is added and the exception is passed on. Both cases count as miss.
+     */
+    public V get(final K key, final Function<? super K, ? extends V> loader) {
+        Stripe<K, V> stripe = stripe(key);
+        V value;
+        synchronized (stripe) {
+            value = stripe.entries.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        misses.increment();
+        V loaded = loader.apply(key);
+        synchronized (stripe) {
+            value = stripe.entries.putIfAbsent(key, loaded);
+        }
+        return value != null ? value : loaded;
+    }
+
+    private Stripe<K, V> stripe(final K key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /** Removes all entries. Doesn't reset the counters. */
+    public void clear() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.entries.clear();
+            }
+        }
+    }
+
+    /** Returns the current number of entries. */
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /** Returns the number of stripes the entries are split into. */
+    public int stripes() {
+        return stripes.length;
+    }
+
+    /** Returns the number of lookups which were answered from the cache. */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** Returns the number of lookups which had to load the value. */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Returns the number of entries which were removed because the cache was full. */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** Returns the ratio of hits to all lookups, or 0 if there were no lookups yet. */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /** The least recently used entries of one stripe. All access must synchronize on the stripe. */
+    private static final class Stripe<K, V> {
+
+        private final Map<K, V> entries;
+
+        Stripe(final int maximumSize, final LongAdder evictions) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                    if (size() > maximumSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
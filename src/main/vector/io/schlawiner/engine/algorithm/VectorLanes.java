@@ -0,0 +1,367 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.stream.IntStream;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static io.schlawiner.engine.algorithm.AbstractAlgorithm.MULTIPLIERS;
+import static io.schlawiner.engine.algorithm.OperationAlgorithm.FORMULAS;
+
+/**
+ * Evaluates {@link OperationAlgorithm#FORMULAS} using the Vector API. The lanes hold the multiplier combinations of
+ * {@link AbstractAlgorithm#MULTIPLIERS}, split into chunks of the preferred vector size.
+ * <p>
+ * To select the same solution as the scalar enumeration, each valid lane is reduced to a key holding the difference in the
+ * upper and the sequence number ({@code row * FORMULAS.length + formula}) in the lower bits. The minimal key is the first
+ * candidate with the smallest difference. Hence, the formulas can be evaluated in any order: they're grouped by operation,
+ * so that each loop is straight-line code. Vectors merged from different branches would be boxed on the heap.
+ * <p>
+ * Only loaded by {@link VectorAlgorithm} if the module {@code jdk.incubator.vector} is available. The chunk state is reused
+ * per thread, so computing a roll doesn't allocate anything but the returned {@link Solutions}.
+ */
+final class VectorLanes implements VectorKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int ROWS = MULTIPLIERS.length;
+    private static final int CHUNKS = (ROWS + LANES - 1) / LANES;
+
+    private static final int SEQUENCE_BITS = 11;
+    private static final int SEQUENCE_MASK = (1 << SEQUENCE_BITS) - 1;
+    private static final int NONE = Integer.MAX_VALUE;
+
+    // multipliers per die and sequence number of the first formula per lane, padded to full chunks
+    private static final int[][] COLUMNS = new int[3][CHUNKS * LANES];
+    private static final int[] SEQUENCES = new int[CHUNKS * LANES];
+
+    // formula indices by operation ordinal
+    private static final int[][] FORMULAS_BY_OPERATION = new int[Operation.values().length][];
+
+    static {
+        if (ROWS * FORMULAS.length > SEQUENCE_MASK) {
+            throw new IllegalStateException("Too many candidates for %d sequence bits".formatted(SEQUENCE_BITS));
+        }
+        if (MAX_DIFFERENCE != (NONE >> SEQUENCE_BITS) - 1) {
+            throw new IllegalStateException("Maximum difference doesn't match %d sequence bits".formatted(SEQUENCE_BITS));
+        }
+        for (int lane = 0; lane < CHUNKS * LANES; lane++) {
+            int[] multiplier = MULTIPLIERS[Math.min(lane, ROWS - 1)];
+            for (int die = 0; die < 3; die++) {
+                COLUMNS[die][lane] = multiplier[die];
+            }
+            SEQUENCES[lane] = lane * FORMULAS.length;
+        }
+        for (Operation operation : Operation.values()) {
+            FORMULAS_BY_OPERATION[operation.ordinal()] = IntStream.range(0, FORMULAS.length)
+                    .filter(f -> FORMULAS[f].operation() == operation)
+                    .toArray();
+        }
+    }
+
+    private final ThreadLocal<Chunk> chunks = ThreadLocal.withInitial(Chunk::new);
+
+    /** Called reflectively by {@link VectorAlgorithm}. */
+    VectorLanes() {
+    }
+
+    @Override
+    public void compute(final int a, final int b, final int c, final int target, final int allowedDifference,
+            final Solutions solutions) {
+        Chunk lanes = chunks.get();
+        lanes.dice[0] = a;
+        lanes.dice[1] = b;
+        lanes.dice[2] = c;
+        lanes.target = target;
+        lanes.allowedDifference = allowedDifference;
+        int best = NONE;
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            lanes.offset = chunk * LANES;
+            best = Math.min(best, add(lanes));
+            best = Math.min(best, addDivide1(lanes));
+            best = Math.min(best, addDivide2(lanes));
+            best = Math.min(best, addMultiply(lanes));
+            best = Math.min(best, addSubtract(lanes));
+            best = Math.min(best, divide(lanes));
+            best = Math.min(best, divideAdd(lanes));
+            best = Math.min(best, divideSubtract1(lanes));
+            best = Math.min(best, divideSubtract2(lanes));
+            best = Math.min(best, multiply(lanes));
+            best = Math.min(best, multiplyAdd(lanes));
+            best = Math.min(best, multiplyDivide(lanes));
+            best = Math.min(best, multiplySubtract1(lanes));
+            best = Math.min(best, multiplySubtract2(lanes));
+            best = Math.min(best, subtract(lanes));
+            best = Math.min(best, subtractDivide1(lanes));
+            best = Math.min(best, subtractDivide2(lanes));
+            best = Math.min(best, subtractMultiply(lanes));
+        }
+
+        if (best != NONE) {
+            int sequence = best & SEQUENCE_MASK;
+            int[] multiplier = MULTIPLIERS[sequence / FORMULAS.length];
+            OperationFormula formula = FORMULAS[sequence % FORMULAS.length];
+            int am = a * multiplier[0];
+            int bm = b * multiplier[1];
+            int cm = c * multiplier[2];
+            solutions.add(formula, am, bm, cm, formula.eval(am, bm, cm));
+        }
+    }
+
+    // one method per operation: a single method evaluating all formulas is too large to be inlined and compiled to SIMD
+    // instructions by the JIT. Only the reduced keys leave the methods, vectors passed between methods would be boxed.
+
+    private static int add(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.ADD)) {
+            keys = lanes.min(keys, f, lanes.x(f).add(lanes.y(f)).add(lanes.z(f)), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int addDivide1(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.ADD_DIVIDE_1)) {
+            IntVector dividend = lanes.x(f).add(lanes.y(f));
+            IntVector divisor = lanes.z(f);
+            keys = lanes.min(keys, f, quotient(dividend, divisor), lanes.valid(f).and(exact(dividend, divisor)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int addDivide2(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.ADD_DIVIDE_2)) {
+            IntVector dividend = lanes.x(f);
+            IntVector divisor = lanes.y(f).add(lanes.z(f));
+            keys = lanes.min(keys, f, quotient(dividend, divisor), lanes.valid(f).and(exact(dividend, divisor)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int addMultiply(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.ADD_MULTIPLY)) {
+            keys = lanes.min(keys, f, lanes.x(f).add(lanes.y(f)).mul(lanes.z(f)), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int addSubtract(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.ADD_SUBTRACT)) {
+            keys = lanes.min(keys, f, lanes.x(f).add(lanes.y(f)).sub(lanes.z(f)), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int divide(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.DIVIDE)) {
+            IntVector x = lanes.x(f);
+            IntVector y = lanes.y(f);
+            IntVector z = lanes.z(f);
+            IntVector dividend = quotient(x, y);
+            keys = lanes.min(keys, f, quotient(dividend, z),
+                    lanes.valid(f).and(exact(x, y)).and(exact(dividend, z)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int divideAdd(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.DIVIDE_ADD)) {
+            IntVector x = lanes.x(f);
+            IntVector y = lanes.y(f);
+            keys = lanes.min(keys, f, quotient(x, y).add(lanes.z(f)), lanes.valid(f).and(exact(x, y)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int divideSubtract1(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.DIVIDE_SUBTRACT_1)) {
+            IntVector x = lanes.x(f);
+            IntVector y = lanes.y(f);
+            keys = lanes.min(keys, f, quotient(x, y).sub(lanes.z(f)), lanes.valid(f).and(exact(x, y)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int divideSubtract2(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.DIVIDE_SUBTRACT_2)) {
+            IntVector y = lanes.y(f);
+            IntVector z = lanes.z(f);
+            keys = lanes.min(keys, f, lanes.x(f).sub(quotient(y, z)), lanes.valid(f).and(exact(y, z)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int multiply(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.MULTIPLY)) {
+            keys = lanes.min(keys, f, lanes.x(f).mul(lanes.y(f)).mul(lanes.z(f)), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int multiplyAdd(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.MULTIPLY_ADD)) {
+            keys = lanes.min(keys, f, lanes.x(f).mul(lanes.y(f)).add(lanes.z(f)), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int multiplyDivide(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.MULTIPLY_DIVIDE)) {
+            IntVector dividend = lanes.x(f).mul(lanes.y(f));
+            IntVector divisor = lanes.z(f);
+            keys = lanes.min(keys, f, quotient(dividend, divisor), lanes.valid(f).and(exact(dividend, divisor)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int multiplySubtract1(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.MULTIPLY_SUBTRACT_1)) {
+            keys = lanes.min(keys, f, lanes.x(f).mul(lanes.y(f)).sub(lanes.z(f)), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int multiplySubtract2(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.MULTIPLY_SUBTRACT_2)) {
+            keys = lanes.min(keys, f, lanes.x(f).sub(lanes.y(f).mul(lanes.z(f))), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int subtract(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.SUBTRACT)) {
+            keys = lanes.min(keys, f, lanes.x(f).sub(lanes.y(f)).sub(lanes.z(f)), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int subtractDivide1(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.SUBTRACT_DIVIDE_1)) {
+            IntVector dividend = lanes.x(f).sub(lanes.y(f));
+            IntVector divisor = lanes.z(f);
+            keys = lanes.min(keys, f, quotient(dividend, divisor), lanes.valid(f).and(exact(dividend, divisor)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int subtractDivide2(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.SUBTRACT_DIVIDE_2)) {
+            IntVector dividend = lanes.x(f);
+            IntVector divisor = lanes.y(f).sub(lanes.z(f));
+            keys = lanes.min(keys, f, quotient(dividend, divisor), lanes.valid(f).and(exact(dividend, divisor)));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int subtractMultiply(final Chunk lanes) {
+        IntVector keys = lanes.none();
+        for (int f : formulas(Operation.SUBTRACT_MULTIPLY)) {
+            keys = lanes.min(keys, f, lanes.x(f).sub(lanes.y(f)).mul(lanes.z(f)), lanes.valid(f));
+        }
+        return keys.reduceLanes(VectorOperators.MIN);
+    }
+
+    private static int[] formulas(final Operation operation) {
+        return FORMULAS_BY_OPERATION[operation.ordinal()];
+    }
+
+    /** Returns the lanes with a non-zero divisor and no remainder. */
+    private static VectorMask<Integer> exact(final IntVector dividend, final IntVector divisor) {
+        return quotient(dividend, divisor).mul(divisor).eq(dividend).andNot(divisor.eq(0));
+    }
+
+    /**
+     * Divides lane-wise. There's no SIMD instruction for integer division, so the lanes are divided as floats. Dividends
+     * and divisors up to 2^24 are exact floats, so exact quotients are exact, too. Inexact quotients and zero divisors
+     * produce arbitrary lanes, use {@link #exact(IntVector, IntVector)} to mask them out.
+     */
+    private static IntVector quotient(final IntVector dividend, final IntVector divisor) {
+        FloatVector quotient = ((FloatVector) dividend.convert(VectorOperators.I2F, 0))
+                .div((FloatVector) divisor.convert(VectorOperators.I2F, 0));
+        return (IntVector) quotient.convert(VectorOperators.F2I, 0);
+    }
+
+    /**
+     * The state of one chunk of lanes. Only holds scalars and arrays, the vectors are loaded on demand. Reused for all chunks
+     * and rolls of a thread.
+     */
+    private static final class Chunk {
+
+        private final int[] dice = new int[3];
+        private int offset;
+        private int target;
+        private int allowedDifference;
+
+        /** The values of the first operand of a formula, one lane per multiplier combination. */
+        IntVector x(final int formula) {
+            return operand(FORMULAS[formula].permutation().x(0, 1, 2));
+        }
+
+        IntVector y(final int formula) {
+            return operand(FORMULAS[formula].permutation().y(0, 1, 2));
+        }
+
+        IntVector z(final int formula) {
+            return operand(FORMULAS[formula].permutation().z(0, 1, 2));
+        }
+
+        private IntVector operand(final int die) {
+            return IntVector.fromArray(SPECIES, COLUMNS[die], offset).mul(dice[die]);
+        }
+
+        /** Lanes of actual multiplier combinations, without permutations if all values are the same. */
+        VectorMask<Integer> valid(final int formula) {
+            // see AbstractAlgorithm.differentDiceNumbers()
+            IntVector a = operand(0);
+            VectorMask<Integer> same = a.eq(operand(1)).and(a.eq(operand(2)));
+            VectorMask<Integer> permutation = SPECIES.maskAll(FORMULAS[formula].permutation() != Permutation.ABC);
+            return SPECIES.indexInRange(offset, ROWS).andNot(same.and(permutation));
+        }
+
+        IntVector none() {
+            return IntVector.broadcast(SPECIES, NONE);
+        }
+
+        /** Merges the keys of the valid lanes of a formula result within the allowed difference. */
+        IntVector min(final IntVector keys, final int formula, final IntVector result, final VectorMask<Integer> valid) {
+            IntVector difference = result.sub(target).abs();
+            VectorMask<Integer> candidates = valid.and(difference.compare(VectorOperators.LE, allowedDifference));
+            IntVector sequences = IntVector.fromArray(SPECIES, SEQUENCES, offset).add(formula);
+            IntVector key = difference.lanewise(VectorOperators.LSHL, SEQUENCE_BITS).add(sequences);
+            return keys.min(key.blend(NONE, candidates.not()));
+        }
+    }
+}
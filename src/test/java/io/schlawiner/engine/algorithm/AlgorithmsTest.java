@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AlgorithmsTest {
+
+    private static final Algorithm ALGORITHM = new OperationAlgorithm();
+
+    @Test
+    void solveBatch() {
+        int[][] dice = dice();
+        int[] targets = targets(dice.length);
+        Solutions[] results = Algorithms.solveBatch(ALGORITHM, dice, targets);
+
+        assertEquals(dice.length, results.length);
+        for (int i = 0; i < dice.length; i++) {
+            Solution expected = ALGORITHM.compute(dice[i][0], dice[i][1], dice[i][2], targets[i]).bestSolution();
+            assertEquals(expected, results[i].bestSolution());
+        }
+    }
+
+    @Test
+    void deterministic() {
+        int[][] dice = dice();
+        int[] targets = targets(dice.length);
+        Solutions[] sequential = new Solutions[dice.length];
+        Solutions[] parallel = new Solutions[dice.length];
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            Algorithms.solveBatch(one, ALGORITHM, dice, targets, sequential);
+            Algorithms.solveBatch(four, ALGORITHM, dice, targets, parallel);
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+        for (int i = 0; i < dice.length; i++) {
+            assertEquals(sequential[i].bestSolution(), parallel[i].bestSolution());
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        int[][] dice = new int[][] { { 1, 2, 3 }, { 4, 5, 6 } };
+        assertThrows(IllegalArgumentException.class, () -> Algorithms.solveBatch(ALGORITHM, dice, new int[] { 42 }));
+        assertThrows(IllegalArgumentException.class,
+                () -> Algorithms.solveBatch(ALGORITHM, dice, new int[] { 1, 2 }, new Solutions[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Algorithms.solveBatch(ALGORITHM, new int[][] { { 1, 2 } }, new int[] { 42 }));
+    }
+
+    private static int[][] dice() {
+        int[][] dice = new int[216 * 5][];
+        int index = 0;
+        for (int i = 0; i < 5; i++) {
+            for (int a = 1; a <= 6; a++) {
+                for (int b = 1; b <= 6; b++) {
+                    for (int c = 1; c <= 6; c++) {
+                        dice[index++] = new int[] { a, b, c };
+                    }
+                }
+            }
+        }
+        return dice;
+    }
+
+    private static int[] targets(final int length) {
+        int[] targets = new int[length];
+        for (int i = 0; i < length; i++) {
+            targets[i] = 1 + (i * 37) % 100;
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.lang.Math.abs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingAlgorithmTest {
+
+    private OperationAlgorithm algorithm;
+    private CachingAlgorithm cache;
+
+    @BeforeEach
+    void setUp() {
+        algorithm = new OperationAlgorithm();
+        cache = new CachingAlgorithm(algorithm, 3);
+    }
+
+    @Test
+    void compute() {
+        Solution expected = algorithm.compute(2, 3, 5, 15).bestSolution();
+        assertEquals(expected, cache.compute(2, 3, 5, 15).bestSolution());
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void orderIgnored() {
+        Solutions solutions = cache.compute(5, 2, 3, 42);
+        assertSame(solutions, cache.compute(2, 3, 5, 42));
+        assertSame(solutions, cache.compute(3, 5, 2, 42));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(abs(algorithm.compute(5, 2, 3, 42).bestSolution().result() - 42),
+                abs(solutions.bestSolution().result() - 42));
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        Solutions first = cache.compute(1, 1, 1, 1);
+        cache.compute(1, 1, 1, 2);
+        cache.compute(1, 1, 1, 3);
+        cache.compute(1, 1, 1, 1);
+        cache.compute(1, 1, 1, 4);
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictions());
+        assertSame(first, cache.compute(1, 1, 1, 1));
+        assertEquals(2, cache.hits());
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    void frozen() {
+        Solutions solutions = cache.compute(2, 3, 5, 42);
+        assertTrue(solutions.frozen());
+        assertThrows(UnsupportedOperationException.class, () -> solutions.add(new Solution("2 + 3 + 5", 40)));
+        assertEquals(algorithm.compute(2, 3, 5, 42).bestSolution(), cache.compute(5, 3, 2, 42).bestSolution());
+    }
+
+    @Test
+    void concurrent() throws InterruptedException, ExecutionException {
+        CachingAlgorithm shared = new CachingAlgorithm(algorithm);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Solutions>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> shared.compute(4, 5, 6, 42)));
+            }
+            Solutions solutions = futures.get(0).get();
+            for (Future<Solutions> future : futures) {
+                assertSame(solutions, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(100, shared.hits() + shared.misses());
+        assertEquals(1, shared.size());
+    }
+
+    @Test
+    void illegalSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CachingAlgorithm(algorithm, 0));
+    }
+}
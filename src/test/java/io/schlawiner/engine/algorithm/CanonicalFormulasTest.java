@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static java.lang.Math.abs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CanonicalFormulasTest {
+
+    @Test
+    void fewerCandidates() {
+        assertFewerCandidates(new OperationAlgorithm(), OperationAlgorithm.FORMULAS.length);
+        assertFewerCandidates(new TermAlgorithm(), OperationAlgorithm.FORMULAS.length);
+    }
+
+    @Test
+    void sameBestDifferences() {
+        assertSameBestDifferences(new OperationAlgorithm());
+        assertSameBestDifferences(new OperationAlgorithm(true));
+        assertSameBestDifferences(new TermAlgorithm());
+        assertSameBestDifferences(new TermAlgorithm(TermAlgorithm.Engine.BYTECODE));
+    }
+
+    private void assertFewerCandidates(final AbstractAlgorithm algorithm, final int formulas) {
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    int[] count = new int[1];
+                    for (int[] multiplier : AbstractAlgorithm.MULTIPLIERS) {
+                        algorithm.computeRow(a, b, c, multiplier, (formula, x, y, z, result) -> count[0]++);
+                    }
+                    assertTrue(count[0] < AbstractAlgorithm.MULTIPLIERS.length * formulas,
+                            "%d candidates for %d, %d, %d".formatted(count[0], a, b, c));
+                }
+            }
+        }
+    }
+
+    private void assertSameBestDifferences(final AbstractAlgorithm algorithm) {
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    Set<Integer> values = values(a, b, c);
+                    Solutions[] all = algorithm.computeAll(a, b, c, 1, 100);
+                    for (int target = 1; target <= 100; target++) {
+                        int expected = Integer.MAX_VALUE;
+                        for (int value : values) {
+                            expected = Math.min(expected, abs(value - target));
+                        }
+                        String roll = "%s: %d, %d, %d, %d".formatted(algorithm.name(), a, b, c, target);
+                        if (expected > AbstractAlgorithm.DEFAULT_DIFFERENCE) {
+                            assertNull(all[target - 1].bestSolution(), roll);
+                        } else {
+                            assertEquals(expected, abs(all[target - 1].bestSolution().result() - target), roll);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** All values of all formulas and multiplier combinations without canonicalization. */
+    private static Set<Integer> values(final int a, final int b, final int c) {
+        Set<Integer> values = new HashSet<>();
+        for (int[] multiplier : AbstractAlgorithm.MULTIPLIERS) {
+            for (OperationFormula formula : OperationAlgorithm.FORMULAS) {
+                int result = formula.eval(a * multiplier[0], b * multiplier[1], c * multiplier[2]);
+                if (result != Formula.INVALID) {
+                    values.add(result);
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FormulaBoundsTest {
+
+    private static final FormulaBounds BOUNDS = new FormulaBounds(OperationAlgorithm.FORMULAS);
+
+    @Test
+    void row() {
+        assertEquals(0, FormulaBounds.row(new int[] { 1, 1, 1 }));
+        assertEquals(5, FormulaBounds.row(new int[] { 1, 10, 100 }));
+        assertEquals(26, FormulaBounds.row(new int[] { 100, 100, 100 }));
+        assertEquals(-1, FormulaBounds.row(new int[] { 1, 2, 1 }));
+    }
+
+    @Test
+    void dice() {
+        assertTrue(FormulaBounds.dice(1, 3, 6));
+        assertFalse(FormulaBounds.dice(0, 3, 6));
+        assertFalse(FormulaBounds.dice(1, 3, 7));
+    }
+
+    @Test
+    void resultsWithinBounds() {
+        for (int[] multiplier : AbstractAlgorithm.MULTIPLIERS) {
+            int row = FormulaBounds.row(multiplier);
+            for (int a = 1; a <= 6; a++) {
+                for (int b = 1; b <= 6; b++) {
+                    for (int c = 1; c <= 6; c++) {
+                        for (int f = 0; f < OperationAlgorithm.FORMULAS.length; f++) {
+                            int result = OperationAlgorithm.FORMULAS[f].eval(a * multiplier[0], b * multiplier[1],
+                                    c * multiplier[2]);
+                            if (result != Formula.INVALID) {
+                                assertTrue(result >= BOUNDS.min(row, f) && result <= BOUNDS.max(row, f));
+                                assertTrue(result >= BOUNDS.rowMin(row) && result <= BOUNDS.rowMax(row));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
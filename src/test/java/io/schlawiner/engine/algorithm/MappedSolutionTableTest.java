@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import io.schlawiner.engine.game.Level;
+import io.schlawiner.engine.term.Term;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedSolutionTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sameAsSolutionTable() throws IOException {
+        Path path = directory.resolve("solutions.bin");
+        MappedSolutionTable.write(path);
+        MappedSolutionTable mapped = MappedSolutionTable.open(path);
+        SolutionTable table = new SolutionTable();
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    for (int target = 1; target <= 100; target++) {
+                        Solutions expected = table.compute(a, b, c, target);
+                        Solutions actual = mapped.compute(a, b, c, target);
+                        assertEquals(expected.bestSolution(), actual.bestSolution());
+                        for (Level level : Level.values()) {
+                            Solution solution = actual.bestSolution(level);
+                            assertEquals(expected.bestSolution(level), solution);
+                            if (solution != null) {
+                                assertEquals(solution.result(), Term.valueOf(solution.term()).eval(), solution.toString());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(mapped.patterns() < 500, String.valueOf(mapped.patterns()));
+        // everything but the dictionary is packed into fixed-size entries
+        assertTrue(Files.size(path) < 5600 * MappedSolutionTable.SLOTS * MappedSolutionTable.ENTRY_BYTES + 16 * 1024);
+    }
+
+    @Test
+    void outsideTable() throws IOException {
+        Path path = directory.resolve("solutions.bin");
+        MappedSolutionTable.write(path);
+        MappedSolutionTable mapped = MappedSolutionTable.open(path);
+        assertEquals(new OperationAlgorithm().compute(7, 3, 5, 15).bestSolution(), mapped.compute(7, 3, 5, 15).bestSolution());
+    }
+
+    @Test
+    void allowedDifference() throws IOException {
+        Path path = directory.resolve("solutions.bin");
+        MappedSolutionTable.write(path, new OperationAlgorithm(5));
+        MappedSolutionTable mapped = MappedSolutionTable.open(path);
+        assertEquals(5, mapped.compute(1, 2, 3, 50).allowedDifference());
+        assertEquals(new OperationAlgorithm(5).compute(1, 2, 3, 50).bestSolution(), mapped.compute(1, 2, 3, 50).bestSolution());
+    }
+
+    @Test
+    void mixedAllowedDifference() {
+        Algorithm mixed = new Algorithm() {
+            private final Algorithm narrow = new OperationAlgorithm(5);
+            private final Algorithm wide = new OperationAlgorithm();
+
+            @Override
+            public Solutions compute(final int a, final int b, final int c, final int target) {
+                return (c == 6 ? narrow : wide).compute(a, b, c, target);
+            }
+
+            @Override
+            public String name() {
+                return "Mixed";
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> MappedSolutionTable.write(directory.resolve("mixed.bin"), mixed));
+    }
+
+    @Test
+    void invalidFile() throws IOException {
+        Path path = directory.resolve("invalid.bin");
+        Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+        assertThrows(IOException.class, () -> MappedSolutionTable.open(path));
+    }
+
+    @Test
+    void truncatedFile() throws IOException {
+        Path path = directory.resolve("solutions.bin");
+        MappedSolutionTable.write(path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = directory.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> MappedSolutionTable.open(truncated));
+
+        Path header = directory.resolve("header.bin");
+        Files.write(header, Arrays.copyOf(bytes, 20));
+        assertThrows(IOException.class, () -> MappedSolutionTable.open(header));
+
+        Path count = directory.resolve("count.bin");
+        ByteBuffer.wrap(bytes).putInt(12, Integer.MAX_VALUE);
+        Files.write(count, bytes);
+        assertThrows(IOException.class, () -> MappedSolutionTable.open(count));
+        // pattern indexes are shorts, so write() never creates more patterns
+        ByteBuffer.wrap(bytes).putInt(12, Short.MAX_VALUE + 1);
+        Files.write(count, bytes);
+        assertThrows(IOException.class, () -> MappedSolutionTable.open(count));
+    }
+
+    @Test
+    void corruptPatternIndex() throws IOException {
+        Path path = directory.resolve("solutions.bin");
+        MappedSolutionTable.write(path);
+        byte[] bytes = Files.readAllBytes(path);
+        // the first slot belongs to roll 1, 1, 1 and target 1
+        int entries = bytes.length - 5600 * MappedSolutionTable.SLOTS * MappedSolutionTable.ENTRY_BYTES;
+        ByteBuffer.wrap(bytes).putShort(entries, Short.MAX_VALUE);
+        Files.write(path, bytes);
+
+        MappedSolutionTable mapped = MappedSolutionTable.open(path);
+        assertThrows(IllegalStateException.class, () -> mapped.compute(1, 1, 1, 1));
+        assertEquals(new OperationAlgorithm().compute(1, 1, 1, 2).bestSolution(), mapped.compute(1, 1, 1, 2).bestSolution());
+    }
+
+    @Test
+    void pattern() {
+        int[] numbers = new int[3];
+        assertEquals("_ + _ - _", MappedSolutionTable.pattern("30 + 5 - 20", numbers));
+        assertArrayEquals(new int[] { 30, 5, 20 }, numbers);
+        assertEquals("(_ - _) * _", MappedSolutionTable.pattern("(600 - 5) * 1", numbers));
+        assertArrayEquals(new int[] { 600, 5, 1 }, numbers);
+        assertThrows(IllegalArgumentException.class, () -> MappedSolutionTable.pattern("1 + 2", numbers));
+    }
+}
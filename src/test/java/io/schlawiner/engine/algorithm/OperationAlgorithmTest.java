@@ -15,10 +15,22 @@
  */
 package io.schlawiner.engine.algorithm;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.schlawiner.engine.game.Level;
+import io.schlawiner.engine.term.Term;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static java.lang.Math.abs;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class OperationAlgorithmTest {
 
@@ -35,4 +47,169 @@ class OperationAlgorithmTest {
         Solution bestSolution = solutions.bestSolution();
         assertEquals("30 + 5 - 20 = 15", bestSolution.toString());
     }
+
+    @Test
+    void computeAll() {
+        Solutions[] all = algorithm.computeAll(3, 6, 6, 1, 100);
+        assertEquals(100, all.length);
+        for (int target = 1; target <= 100; target++) {
+            assertEquals(algorithm.compute(3, 6, 6, target).bestSolution(), all[target - 1].bestSolution());
+        }
+    }
+
+    @Test
+    void levels() {
+        for (int a = 1; a <= 6; a++) {
+            for (int b = a; b <= 6; b++) {
+                for (int c = b; c <= 6; c++) {
+                    Solutions[] all = algorithm.computeAll(a, b, c, 1, 100);
+                    for (int target = 1; target <= 100; target++) {
+                        Solutions solutions = algorithm.compute(a, b, c, target);
+                        int best = abs(solutions.bestSolution().result() - target);
+                        for (Level level : Level.values()) {
+                            Solution solution = solutions.bestSolution(level);
+                            int difference = abs(solution.result() - target);
+                            assertTrue(difference >= best && difference <= best + level.maxDifference());
+                            assertEquals(all[target - 1].bestSolution(level), solution);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void allocationFree() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 10_000; i++) {
+            algorithm.compute(2, 3, 5, 1 + i % 100);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1_000; i++) {
+            algorithm.compute(2, 3, 5, 1 + i % 100);
+        }
+        long perCompute = (threads.getCurrentThreadAllocatedBytes() - before) / 1_000;
+
+        // nothing but the returned solutions and their buckets
+        assertTrue(perCompute < 512, "Allocated %d bytes per compute".formatted(perCompute));
+    }
+
+    @Test
+    void pruning() {
+        Solutions solutions = algorithm.compute(2, 3, 5, 15);
+        assertTrue(solutions.pruned() > 0);
+        assertEquals("30 + 5 - 20 = 15", solutions.bestSolution().toString());
+
+        // dice outside the bounds are never pruned
+        assertEquals(0, algorithm.compute(7, 3, 5, 15).pruned());
+    }
+
+    @Test
+    void shortCircuit() {
+        OperationAlgorithm shortCircuit = new OperationAlgorithm(true);
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    for (int target = 1; target <= 100; target++) {
+                        Solution expected = algorithm.compute(a, b, c, target).bestSolution();
+                        Solution actual = shortCircuit.compute(a, b, c, target).bestSolution();
+                        assertEquals(abs(expected.result() - target), abs(actual.result() - target));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void shortCircuitComputeAll() {
+        // computeAll() enumerates all multiplier combinations in the default order, even in short-circuit mode
+        OperationAlgorithm shortCircuit = new OperationAlgorithm(true);
+        for (int a = 1; a <= 6; a++) {
+            for (int b = a; b <= 6; b++) {
+                for (int c = b; c <= 6; c++) {
+                    Solutions[] all = shortCircuit.computeAll(a, b, c, 1, 100);
+                    for (int target = 1; target <= 100; target++) {
+                        Solutions expected = algorithm.compute(a, b, c, target);
+                        assertEquals(expected.bestSolution(), all[target - 1].bestSolution());
+                        for (Level level : Level.values()) {
+                            assertEquals(expected.bestSolution(level), all[target - 1].bestSolution(level));
+                        }
+                        Solution exit = shortCircuit.compute(a, b, c, target).bestSolution();
+                        assertEquals(abs(exit.result() - target), abs(all[target - 1].bestSolution().result() - target));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void solutions() {
+        for (int target = 1; target <= 100; target++) {
+            List<Solution> solutions = algorithm.solutions(2, 3, 5, target).toList();
+            assertFalse(solutions.isEmpty());
+            assertEquals(solutions.size(), solutions.stream().map(Solution::term).distinct().count());
+            for (Solution solution : solutions) {
+                assertTrue(abs(solution.result() - target) <= AbstractAlgorithm.DEFAULT_DIFFERENCE, solution.toString());
+                assertEquals(solution.result(), Term.valueOf(solution.term()).eval(), solution.toString());
+            }
+            Solution best = algorithm.compute(2, 3, 5, target).bestSolution();
+            assertTrue(solutions.contains(best), best.toString());
+        }
+    }
+
+    /** The stream covers every valid candidate, not only the canonical ones. Counts are those of the full enumeration. */
+    @Test
+    void solutionsNotCanonical() {
+        assertEquals(List.of(191L, 67L, 37L, 94L, 49L, 20L, 62L, 7L, 10L, 132L, 58L, 28L, 84L, 38L, 13L),
+                streamedTerms(algorithm));
+        assertEquals(streamedTerms(algorithm), streamedTerms(new TermAlgorithm()));
+        assertEquals(streamedTerms(algorithm), streamedTerms(new TermAlgorithm(TermAlgorithm.Engine.GRAPH)));
+    }
+
+    static List<Long> streamedTerms(final Algorithm algorithm) {
+        int[][] rolls = new int[][] { { 1, 2, 3 }, { 2, 2, 5 }, { 6, 6, 6 }, { 4, 1, 6 }, { 3, 5, 5 } };
+        List<Long> counts = new ArrayList<>();
+        for (int[] roll : rolls) {
+            for (int target : new int[] { 1, 42, 100 }) {
+                counts.add(algorithm.solutions(roll[0], roll[1], roll[2], target).map(Solution::term).distinct().count());
+            }
+        }
+        return counts;
+    }
+
+    @Test
+    void firstSolution() {
+        int[] rows = new int[1];
+        OperationAlgorithm counting = new OperationAlgorithm() {
+            @Override
+            protected void computeRow(final int a, final int b, final int c, final int[] multiplier,
+                    final Candidates candidates) {
+                rows[0]++;
+                super.computeRow(a, b, c, multiplier, candidates);
+            }
+        };
+
+        // the first multiplier combination already has solutions, the others are never evaluated
+        Solution first = counting.solutions(2, 3, 5, 15).findFirst().orElseThrow();
+        assertEquals(1, rows[0]);
+        rows[0] = 0;
+        assertEquals(3, counting.solutions(2, 3, 5, 15).limit(3).count());
+        assertTrue(rows[0] < AbstractAlgorithm.MULTIPLIERS.length, String.valueOf(rows[0]));
+
+        rows[0] = 0;
+        assertEquals(first, counting.solutions(2, 3, 5, 15).toList().get(0));
+        assertEquals(AbstractAlgorithm.MULTIPLIERS.length, rows[0]);
+    }
+
+    @Test
+    void sameCandidatesByHits() {
+        assertEquals(rows(AbstractAlgorithm.MULTIPLIERS), rows(AbstractAlgorithm.MULTIPLIERS_BY_HITS));
+        assertEquals(Set.of(OperationAlgorithm.FORMULAS), Set.of(OperationAlgorithm.FORMULAS_BY_HITS));
+    }
+
+    private static Set<String> rows(final int[][] multipliers) {
+        Set<String> rows = Arrays.stream(multipliers).map(Arrays::toString).collect(Collectors.toSet());
+        assertEquals(multipliers.length, rows.size());
+        return rows;
+    }
 }
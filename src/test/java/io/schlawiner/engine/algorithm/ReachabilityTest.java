@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.lang.Math.abs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReachabilityTest {
+
+    private OperationAlgorithm algorithm;
+    private Reachability reachability;
+
+    @BeforeEach
+    void setUp() {
+        algorithm = new OperationAlgorithm();
+        reachability = new Reachability();
+    }
+
+    @Test
+    void sameAsOperations() {
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    BitSet exact = reachability.targets(a, b, c);
+                    BitSet close = reachability.targets(a, b, c, 2);
+                    for (int target = 1; target <= 100; target++) {
+                        Solution best = algorithm.compute(a, b, c, target).bestSolution();
+                        int distance = best != null ? abs(best.result() - target) : Reachability.UNREACHABLE;
+                        String roll = "%d, %d, %d, %d".formatted(a, b, c, target);
+                        assertEquals(distance, reachability.distance(a, b, c, target), roll);
+                        assertEquals(distance == 0, reachability.exact(a, b, c, target), roll);
+                        assertEquals(distance == 0, exact.get(target), roll);
+                        assertEquals(distance != Reachability.UNREACHABLE && distance <= 2, close.get(target), roll);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void fractions() {
+        assertEquals(reachability.targetsOfAllRolls(), reachability.targets(1.0));
+        assertEquals(reachability.targetsOfAnyRoll(), reachability.targets(Double.MIN_VALUE));
+        assertEquals(100, reachability.targets(0.0).cardinality());
+        for (int target = 1; target <= 100; target++) {
+            int rolls = 0;
+            for (int a = 1; a <= 6; a++) {
+                for (int b = 1; b <= 6; b++) {
+                    for (int c = 1; c <= 6; c++) {
+                        if (reachability.exact(a, b, c, target)) {
+                            rolls++;
+                        }
+                    }
+                }
+            }
+            assertEquals(rolls / 216.0, reachability.fraction(target), 1e-9);
+            assertEquals(reachability.fraction(target), reachability.fraction(target, 0), 1e-9);
+            assertTrue(reachability.fraction(target, 1) >= reachability.fraction(target));
+            assertEquals(rolls >= 0.9 * 216, reachability.targets(0.9).get(target));
+        }
+    }
+
+    @Test
+    void outOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> reachability.exact(0, 1, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> reachability.exact(1, 2, 3, 101));
+        assertThrows(IllegalArgumentException.class, () -> reachability.targets(1, 2, 3, 16));
+        assertThrows(IllegalArgumentException.class, () -> reachability.targets(1.5));
+        assertFalse(reachability.targets(1, 1, 1).get(0));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import static java.lang.Math.abs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolutionTableTest {
+
+    private static final Algorithm ALGORITHM = new OperationAlgorithm();
+    private static final SolutionTable TABLE = new SolutionTable(ALGORITHM);
+
+    @Test
+    void compute() {
+        Solutions solutions = TABLE.compute(2, 3, 5, 15);
+        assertEquals("30 + 5 - 20 = 15", solutions.bestSolution().toString());
+    }
+
+    @Test
+    void sameDifference() {
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    for (int target = 1; target <= 100; target += 9) {
+                        Solution expected = ALGORITHM.compute(a, b, c, target).bestSolution();
+                        Solution actual = TABLE.compute(a, b, c, target).bestSolution();
+                        assertEquals(abs(expected.result() - target), abs(actual.result() - target));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void orderIgnored() {
+        assertSame(TABLE.compute(2, 3, 5, 42), TABLE.compute(5, 2, 3, 42));
+        assertSame(TABLE.compute(6, 6, 1, 99), TABLE.compute(1, 6, 6, 99));
+    }
+
+    @Test
+    void frozen() {
+        Solutions solutions = TABLE.compute(2, 3, 5, 42);
+        Solution bestSolution = solutions.bestSolution();
+        assertTrue(solutions.frozen());
+        assertThrows(UnsupportedOperationException.class, () -> solutions.add(new Solution("2 + 3 + 5", 10)));
+        assertThrows(UnsupportedOperationException.class, () -> solutions.prune(1));
+        assertEquals(bestSolution, TABLE.compute(2, 3, 5, 42).bestSolution());
+    }
+
+    @Test
+    void outsideTable() {
+        assertEquals(ALGORITHM.compute(2, 3, 5, 150).bestSolution(), TABLE.compute(2, 3, 5, 150).bestSolution());
+        assertEquals(ALGORITHM.compute(7, 3, 5, 42).bestSolution(), TABLE.compute(7, 3, 5, 42).bestSolution());
+    }
+}
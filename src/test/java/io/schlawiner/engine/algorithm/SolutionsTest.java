@@ -15,10 +15,13 @@
  */
 package io.schlawiner.engine.algorithm;
 
+import io.schlawiner.engine.game.Level;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SolutionsTest {
 
@@ -46,4 +49,58 @@ class SolutionsTest {
         solutions.add(new Solution("", 50));
         assertNull(solutions.bestSolution());
     }
+
+    @Test
+    void exact() {
+        solutions = new Solutions(23, 10);
+        solutions.add(new Solution("term 1", 22));
+        assertFalse(solutions.exact());
+        assertFalse(solutions.complete());
+
+        solutions.add(new Solution("term 2", 23));
+        assertTrue(solutions.exact());
+        assertFalse(solutions.complete());
+    }
+
+    @Test
+    void shortCircuit() {
+        solutions = new Solutions(23, 10, true);
+        solutions.add(new Solution("term 1", 22));
+        assertFalse(solutions.complete());
+
+        solutions.add(new Solution("term 2", 23));
+        assertTrue(solutions.complete());
+    }
+
+    @Test
+    void bestSolutionByLevel() {
+        solutions = new Solutions(23, 10);
+        solutions.add(new Solution("term 1", 20));
+        solutions.add(new Solution("term 2", 22));
+        solutions.add(new Solution("term 3", 24));
+        solutions.add(new Solution("term 4", 27));
+
+        assertEquals("term 2", solutions.bestSolution(Level.HARD).term());
+        assertEquals("term 1", solutions.bestSolution(Level.MEDIUM).term());
+        // no solution with difference 5, next better one has difference 4
+        assertEquals("term 4", solutions.bestSolution(Level.EASY).term());
+    }
+
+    @Test
+    void firstSolutionPerDifference() {
+        solutions = new Solutions(23, 10);
+        solutions.add(new Solution("term 1", 21));
+        solutions.add(new Solution("term 2", 25));
+        solutions.add(new Solution("term 3", 23));
+
+        assertEquals("term 3", solutions.bestSolution().term());
+        assertEquals("term 1", solutions.bestSolution(Level.MEDIUM).term());
+    }
+
+    @Test
+    void noSolutionByLevel() {
+        solutions = new Solutions(33, 10);
+        solutions.add(new Solution("", 50));
+        assertNull(solutions.bestSolution(Level.EASY));
+    }
 }
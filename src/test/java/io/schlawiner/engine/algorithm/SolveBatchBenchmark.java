@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures {@link Algorithms#solveBatch(ForkJoinPool, Algorithm, int[][], int[], Solutions[])} with an increasing number of
+ * threads. Every round solves all dice rolls for all targets between 1 and 100.
+ */
+public final class SolveBatchBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(final String[] args) {
+        Algorithm algorithm = new OperationAlgorithm();
+        int[][] dice = new int[216 * 100][];
+        int[] targets = new int[dice.length];
+        int index = 0;
+        for (int target = 1; target <= 100; target++) {
+            for (int a = 1; a <= 6; a++) {
+                for (int b = 1; b <= 6; b++) {
+                    for (int c = 1; c <= 6; c++) {
+                        dice[index] = new int[] { a, b, c };
+                        targets[index++] = target;
+                    }
+                }
+            }
+        }
+        Solutions[] results = new Solutions[dice.length];
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= processors; parallelism *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                Algorithms.solveBatch(pool, algorithm, dice, targets, results);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            pool.shutdown();
+            System.out.printf("%2d threads: %6d ms for %d computations%n", parallelism, best / 1_000_000, dice.length);
+        }
+    }
+}
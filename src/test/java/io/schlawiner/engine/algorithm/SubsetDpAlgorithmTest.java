@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.List;
+
+import io.schlawiner.engine.game.Level;
+import io.schlawiner.engine.term.Term;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubsetDpAlgorithmTest {
+
+    private SubsetDpAlgorithm algorithm;
+
+    @BeforeEach
+    void setUp() {
+        algorithm = new SubsetDpAlgorithm();
+    }
+
+    @Test
+    void compute() {
+        Solution bestSolution = algorithm.compute(2, 3, 5, 15).bestSolution();
+        assertEquals(15, bestSolution.result());
+        assertEquals(15, Term.valueOf(bestSolution.term()).eval());
+    }
+
+    @Test
+    void allDifferences() {
+        Solutions solutions = algorithm.compute(2, 3, 5, 15);
+        List<Solution> streamed = algorithm.solutions(2, 3, 5, 15).toList();
+        for (int difference = 0; difference <= 15; difference++) {
+            int d = difference;
+            boolean reachable = streamed.stream().anyMatch(solution -> Math.abs(solution.result() - 15) == d);
+            assertEquals(reachable, solutions.solution(difference) != null, "difference " + difference);
+        }
+        Solution easy = solutions.bestSolution(Level.EASY);
+        assertEquals(Level.EASY.maxDifference(), Math.abs(easy.result() - 15));
+        assertEquals(easy.result(), Term.valueOf(easy.term()).eval());
+    }
+
+    @Test
+    void atLeastAsGoodAsOperations() {
+        OperationAlgorithm operations = new OperationAlgorithm();
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    for (int target = 1; target <= 100; target += 7) {
+                        Solution expected = operations.compute(a, b, c, target).bestSolution();
+                        Solution actual = algorithm.compute(a, b, c, target).bestSolution();
+                        assertTrue(Math.abs(actual.result() - target) <= Math.abs(expected.result() - target),
+                                "%s is worse than %s".formatted(actual, expected));
+                        assertEquals(actual.result(), Term.valueOf(actual.term()).eval(), actual.toString());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void solutions() {
+        List<Solution> solutions = algorithm.solutions(2, 3, 5, 15).toList();
+        assertEquals(solutions.size(), solutions.stream().mapToInt(Solution::result).distinct().count());
+        assertTrue(solutions.stream().anyMatch(solution -> solution.result() == 15));
+        for (Solution solution : solutions) {
+            assertTrue(solution.result() >= 0 && solution.result() <= 30, solution.toString());
+            assertEquals(solution.result(), Term.valueOf(solution.term()).eval(), solution.toString());
+        }
+    }
+
+    @Test
+    void moreDice() {
+        Solution bestSolution = algorithm.compute(new int[] { 1, 2, 3, 4 }, 997).bestSolution();
+        assertEquals(997, bestSolution.result());
+        assertEquals(997, Term.valueOf(bestSolution.term()).eval());
+    }
+
+    @Test
+    void brackets() {
+        SubsetDpAlgorithm ones = new SubsetDpAlgorithm(new int[] { 1 }, 15, Long.MAX_VALUE);
+        for (int target = 1; target <= 50; target++) {
+            Solution bestSolution = ones.compute(new int[] { 1, 2, 3, 6 }, target).bestSolution();
+            assertEquals(bestSolution.result(), Term.valueOf(bestSolution.term()).eval(), bestSolution.toString());
+        }
+    }
+
+    @Test
+    void memoized() {
+        assertEquals(algorithm.reachable(new int[] { 2, 3, 5 }), algorithm.reachable(new int[] { 5, 2, 3 }));
+        assertEquals(algorithm.compute(2, 3, 5, 42).bestSolution(), algorithm.compute(5, 3, 2, 42).bestSolution());
+    }
+
+    @Test
+    void key() {
+        assertTrue(SubsetDpAlgorithm.key(new int[] { 0, 1 }) != SubsetDpAlgorithm.key(new int[] { 0, 0, 1 }));
+        assertTrue(SubsetDpAlgorithm.key(new int[] { 1, 2, 3 }) != SubsetDpAlgorithm.key(new int[] { 1, 2, 4 }));
+        assertEquals(-1, SubsetDpAlgorithm.key(new int[] { 1, 2, 127 }));
+        assertEquals(-1, SubsetDpAlgorithm.key(new int[] { -1, 2, 3 }));
+        // dice which don't fit into a key are computed without the memo
+        Solution bestSolution = algorithm.compute(new int[] { 2, 3, 500 }, 1000).bestSolution();
+        assertEquals(1000, bestSolution.result());
+        assertEquals(1000, Term.valueOf(bestSolution.term()).eval());
+    }
+
+    @Test
+    void memoBounded() {
+        for (int a = 1; a <= 30; a++) {
+            for (int b = a; b <= 30; b++) {
+                algorithm.compute(new int[] { a, b, 100 }, 42);
+            }
+        }
+        assertEquals(SubsetDpAlgorithm.MEMO_SIZE, algorithm.memoized());
+    }
+
+    @Test
+    void intValues() {
+        // 10000 ^ 3 overflows an int, so it must not be used as intermediate value
+        SubsetDpAlgorithm hundreds = new SubsetDpAlgorithm(new int[] { 100 }, 15, Long.MAX_VALUE);
+        int[] dice = new int[] { 100, 100, 100, 100 };
+        assertEquals(hundreds.reachable(dice),
+                new SubsetDpAlgorithm(new int[] { 100 }, 15, Integer.MAX_VALUE).reachable(dice));
+        hundreds.solutions(100, 100, 100, 10000).forEach(solution -> assertEquals(solution.result(),
+                Term.valueOf(solution.term()).eval(), solution.toString()));
+    }
+
+    @Test
+    void maxValue() {
+        SubsetDpAlgorithm limited = new SubsetDpAlgorithm(new int[] { 1, 10, 100 }, 15, 100);
+        assertTrue(limited.reachable(new int[] { 2, 3, 5 }) < algorithm.reachable(new int[] { 2, 3, 5 }));
+    }
+
+    @Test
+    void illegalDice() {
+        assertThrows(IllegalArgumentException.class, () -> algorithm.compute(new int[0], 42));
+        assertThrows(IllegalArgumentException.class, () -> algorithm.compute(new int[9], 42));
+    }
+
+    @Test
+    void illegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SubsetDpAlgorithm(new int[0], 15, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new SubsetDpAlgorithm(new int[] { 1, 0 }, 15, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new SubsetDpAlgorithm(new int[] { 1, -10 }, 15, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new SubsetDpAlgorithm(new int[] { 1, 10 }, -1, 1000));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures {@link SubsetDpAlgorithm} for three to six dice: the time to compute the reachable values of a roll (cold) and
+ * the time of a memoized compute (warm).
+ */
+public final class SubsetDpBenchmark {
+
+    private static final int ROLLS = 5;
+    private static final long MAX_VALUE = 100_000;
+
+    public static void main(final String[] args) {
+        Random random = new Random(42);
+        for (int dice = 3; dice <= 6; dice++) {
+            // limit intermediate values for more than four dice, the number of reachable values explodes otherwise
+            SubsetDpAlgorithm algorithm = dice <= 4 ? new SubsetDpAlgorithm()
+                    : new SubsetDpAlgorithm(new int[] { 1, 10, 100 }, 15, MAX_VALUE);
+            for (int roll = 0; roll < ROLLS; roll++) {
+                int[] numbers = random.ints(dice, 1, 7).toArray();
+                long start = System.nanoTime();
+                int reachable = algorithm.reachable(numbers);
+                long cold = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                Solution solution = algorithm.compute(numbers, 1 + random.nextInt(100)).bestSolution();
+                long warm = System.nanoTime() - start;
+                System.out.printf("%-20s %10d values, cold %8.1f ms, warm %8.1f us: %s%n", Arrays.toString(numbers),
+                        reachable, cold / 1_000_000.0, warm / 1_000.0, solution);
+            }
+        }
+    }
+}
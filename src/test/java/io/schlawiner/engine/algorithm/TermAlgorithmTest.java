@@ -15,6 +15,9 @@
  */
 package io.schlawiner.engine.algorithm;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -35,4 +38,50 @@ class TermAlgorithmTest {
         Solution bestSolution = solutions.bestSolution();
         assertEquals("30 + 5 - 20 = 15", bestSolution.toString());
     }
+
+    @Test
+    void computeAll() {
+        Solutions[] all = algorithm.computeAll(3, 6, 6, 1, 100);
+        assertEquals(100, all.length);
+        for (int target = 1; target <= 100; target++) {
+            assertEquals(algorithm.compute(3, 6, 6, target).bestSolution(), all[target - 1].bestSolution());
+        }
+    }
+
+    @Test
+    void bytecode() {
+        TermAlgorithm bytecode = new TermAlgorithm(TermAlgorithm.Engine.BYTECODE);
+        for (int target = 1; target <= 100; target++) {
+            assertEquals(algorithm.compute(2, 3, 5, target).bestSolution(), bytecode.compute(2, 3, 5, target).bestSolution());
+            assertEquals(algorithm.compute(4, 4, 4, target).bestSolution(), bytecode.compute(4, 4, 4, target).bestSolution());
+        }
+    }
+
+    @Test
+    void graph() {
+        TermAlgorithm graph = new TermAlgorithm(TermAlgorithm.Engine.GRAPH);
+        for (int target = 1; target <= 100; target++) {
+            assertEquals(algorithm.compute(2, 3, 5, target).bestSolution(), graph.compute(2, 3, 5, target).bestSolution());
+            assertEquals(algorithm.compute(4, 4, 4, target).bestSolution(), graph.compute(4, 4, 4, target).bestSolution());
+            assertEquals(algorithm.compute(7, 3, 5, target).bestSolution(), graph.compute(7, 3, 5, target).bestSolution());
+        }
+    }
+
+    @Test
+    void concurrent() {
+        // the evaluation arrays are reused per thread, so parallel callers must not see each other's values
+        for (TermAlgorithm.Engine engine : TermAlgorithm.Engine.values()) {
+            TermAlgorithm terms = new TermAlgorithm(engine);
+            List<Solution> expected = IntStream.rangeClosed(1, 216)
+                    .mapToObj(roll -> algorithm.compute(1 + roll % 6, 1 + roll / 6 % 6, 1 + roll / 36 % 6, roll % 100 + 1)
+                            .bestSolution())
+                    .toList();
+            List<Solution> actual = IntStream.rangeClosed(1, 216)
+                    .parallel()
+                    .mapToObj(roll -> terms.compute(1 + roll % 6, 1 + roll / 6 % 6, 1 + roll / 36 % 6, roll % 100 + 1)
+                            .bestSolution())
+                    .toList();
+            assertEquals(expected, actual, engine.name());
+        }
+    }
 }
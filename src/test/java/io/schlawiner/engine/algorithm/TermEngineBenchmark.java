@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.schlawiner.engine.term.Assignment;
+import io.schlawiner.engine.term.CompiledTerm;
+import io.schlawiner.engine.term.IntTernaryOperator;
+import io.schlawiner.engine.term.Term;
+import io.schlawiner.engine.term.TermException;
+import io.schlawiner.engine.term.TermGraph;
+
+/**
+ * Compares the evaluation of all {@link Terms} templates using the tree interpreter ({@link Term#eval(Assignment...)}),
+ * {@link CompiledTerm}, the bytecode compiled by {@link Term#compileToBytecode(String...)} and all templates merged into one
+ * {@link TermGraph}.
+ */
+public final class TermEngineBenchmark {
+
+    private static final int[] MULTIPLIERS = new int[] { 1, 10, 100 };
+    private static final int ROUNDS = 5;
+
+    public static void main(final String[] args) throws IllegalAccessException {
+        List<Term> terms = new ArrayList<>();
+        for (Field field : Terms.class.getFields()) {
+            terms.add((Term) field.get(null));
+        }
+        int[][] values = values();
+        System.out.printf("Evaluating %d templates for %d values%n", terms.size(), values.length);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (Term term : terms) {
+                for (int[] v : values) {
+                    try {
+                        checksum += term.eval(new Assignment("a", v[0]), new Assignment("b", v[1]),
+                                new Assignment("c", v[2]));
+                    } catch (TermException e) {
+                        checksum += IntTernaryOperator.INVALID;
+                    }
+                }
+            }
+            print("Tree interpreter", start, terms.size() * values.length, checksum);
+        }
+
+        List<CompiledTerm> compiledTerms = new ArrayList<>();
+        for (Term term : terms) {
+            compiledTerms.add(term.compile("a", "b", "c"));
+        }
+        int[] stack = new int[3];
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (CompiledTerm compiledTerm : compiledTerms) {
+                for (int[] v : values) {
+                    checksum += compiledTerm.tryEval(v, stack) ? stack[0] : IntTernaryOperator.INVALID;
+                }
+            }
+            print("Compiled term", start, terms.size() * values.length, checksum);
+        }
+
+        List<IntTernaryOperator> operators = new ArrayList<>();
+        for (Term term : terms) {
+            operators.add(term.compileToBytecode("a", "b", "c"));
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (IntTernaryOperator operator : operators) {
+                for (int[] v : values) {
+                    checksum += operator.applyAsInt(v[0], v[1], v[2]);
+                }
+            }
+            print("Bytecode", start, terms.size() * values.length, checksum);
+        }
+
+        TermGraph graph = TermGraph.of(terms, "a", "b", "c");
+        TermGraph.Registers registers = graph.registers();
+        int[] results = new int[graph.terms()];
+        boolean[] valid = new boolean[graph.terms()];
+        System.out.printf("Graph with %d nodes%n", graph.size());
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (int[] v : values) {
+                graph.eval(v, registers, results, valid);
+                for (int i = 0; i < results.length; i++) {
+                    checksum += valid[i] ? results[i] : IntTernaryOperator.INVALID;
+                }
+            }
+            print("Graph", start, terms.size() * values.length, checksum);
+        }
+    }
+
+    private static int[][] values() {
+        List<int[]> values = new ArrayList<>();
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    for (int ma : MULTIPLIERS) {
+                        for (int mb : MULTIPLIERS) {
+                            for (int mc : MULTIPLIERS) {
+                                values.add(new int[] { a * ma, b * mb, c * mc });
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return values.toArray(new int[0][]);
+    }
+
+    private static void print(final String engine, final long start, final int evaluations, final long checksum) {
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-16s %6d ms, %7.1f ns per evaluation (checksum %d)%n", engine, elapsed / 1_000_000,
+                (double) elapsed / evaluations, checksum);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorAlgorithmTest {
+
+    private VectorAlgorithm algorithm;
+
+    @BeforeEach
+    void setUp() {
+        algorithm = new VectorAlgorithm();
+    }
+
+    @Test
+    void compute() {
+        Solutions solutions = algorithm.compute(2, 3, 5, 15);
+        Solution bestSolution = solutions.bestSolution();
+        assertEquals("30 + 5 - 20 = 15", bestSolution.toString());
+    }
+
+    @Test
+    void sameAsOperations() {
+        OperationAlgorithm operations = new OperationAlgorithm();
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    for (int target = 1; target <= 100; target += 3) {
+                        assertEquals(operations.compute(a, b, c, target).bestSolution(),
+                                algorithm.compute(a, b, c, target).bestSolution(), "%d %d %d -> %d".formatted(a, b, c, target));
+                    }
+                }
+            }
+        }
+    }
+
+    /** Set by the vector-test execution of the vector profile, which adds the module. */
+    @Test
+    void vectorSupport() {
+        if (Boolean.getBoolean("vector.expected")) {
+            assertTrue(VectorAlgorithm.vectorSupport());
+            assertEquals("Algorithm based on static operations using the Vector API", algorithm.name());
+        }
+    }
+
+    @Test
+    void scalarFallback() {
+        OperationAlgorithm operations = new OperationAlgorithm();
+        VectorAlgorithm scalar = new VectorAlgorithm(AbstractAlgorithm.DEFAULT_DIFFERENCE, null);
+        assertEquals(operations.name(), scalar.name());
+        for (int target = 1; target <= 100; target++) {
+            assertEquals(operations.compute(2, 3, 5, target).bestSolution(), scalar.compute(2, 3, 5, target).bestSolution());
+        }
+    }
+
+    @Test
+    void sameDice() {
+        OperationAlgorithm operations = new OperationAlgorithm();
+        for (int target = 1; target <= 100; target++) {
+            assertEquals(operations.compute(4, 4, 4, target).bestSolution(), algorithm.compute(4, 4, 4, target).bestSolution());
+        }
+    }
+
+    @Test
+    void smallDifference() {
+        OperationAlgorithm operations = new OperationAlgorithm(0);
+        VectorAlgorithm exact = new VectorAlgorithm(0);
+        for (int target = 1; target <= 100; target++) {
+            assertEquals(operations.compute(1, 1, 2, target).bestSolution(), exact.compute(1, 1, 2, target).bestSolution());
+        }
+    }
+
+    @Test
+    void largeDice() {
+        OperationAlgorithm operations = new OperationAlgorithm();
+        assertEquals(operations.compute(7, 40, 41, 42).bestSolution(), algorithm.compute(7, 40, 41, 42).bestSolution());
+        assertEquals(operations.compute(12, 40, 36, 1).bestSolution(), algorithm.compute(12, 40, 36, 1).bestSolution());
+    }
+}
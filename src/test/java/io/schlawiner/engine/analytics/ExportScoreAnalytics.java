@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.analytics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.schlawiner.engine.algorithm.OperationAlgorithm;
+import io.schlawiner.engine.game.Settings;
+
+/**
+ * Computes {@link ScoreAnalytics} for the default settings and writes them as CSV to the file given as first argument or to
+ * {@code score-analytics.csv}. Prints the expected game score for 0 up to 5 retries.
+ */
+public final class ExportScoreAnalytics {
+
+    public static void main(final String[] args) throws IOException {
+        Path path = Path.of(args.length > 0 ? args[0] : "score-analytics.csv");
+        Settings settings = Settings.defaults();
+
+        long start = System.nanoTime();
+        ScoreAnalytics analytics = ScoreAnalytics.compute(new OperationAlgorithm());
+        System.out.printf("Computed distribution in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            analytics.writeCsv(writer, settings);
+        }
+        System.out.printf("Written %s%n", path.toAbsolutePath());
+        for (int retries = 0; retries <= 5; retries++) {
+            System.out.printf("%d retries: expected score %.3f for %d numbers and penalty %d%n", retries,
+                    analytics.expectedGameScore(settings.withRetries(retries)), settings.numbers(), settings.penalty());
+        }
+    }
+}
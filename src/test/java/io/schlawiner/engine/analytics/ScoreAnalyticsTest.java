@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.analytics;
+
+import java.io.IOException;
+
+import io.schlawiner.engine.algorithm.OperationAlgorithm;
+import io.schlawiner.engine.algorithm.Reachability;
+import io.schlawiner.engine.game.Settings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreAnalyticsTest {
+
+    private ScoreAnalytics analytics;
+
+    @BeforeEach
+    void setUp() {
+        analytics = ScoreAnalytics.compute(new OperationAlgorithm());
+    }
+
+    @Test
+    void distribution() {
+        Reachability reachability = new Reachability();
+        for (int target = 1; target <= 100; target++) {
+            int[] expected = new int[analytics.maxDifference() + 1];
+            int unsolved = 0;
+            for (int a = 1; a <= 6; a++) {
+                for (int b = 1; b <= 6; b++) {
+                    for (int c = 1; c <= 6; c++) {
+                        int distance = reachability.distance(a, b, c, target);
+                        if (distance == Reachability.UNREACHABLE) {
+                            unsolved++;
+                        } else {
+                            expected[distance]++;
+                        }
+                    }
+                }
+            }
+            int sum = analytics.unsolved(target);
+            for (int difference = 0; difference <= analytics.maxDifference(); difference++) {
+                assertEquals(expected[difference], analytics.count(target, difference), target + " / " + difference);
+                sum += analytics.count(target, difference);
+            }
+            assertEquals(unsolved, analytics.unsolved(target));
+            assertEquals(216, sum);
+        }
+    }
+
+    @Test
+    void expectedScore() {
+        int penalty = 5;
+        double sum = 0;
+        for (int target = 1; target <= 100; target++) {
+            double expected = 0;
+            for (int difference = 0; difference <= analytics.maxDifference(); difference++) {
+                expected += Math.min(difference, penalty) * analytics.probability(target, difference);
+            }
+            expected += penalty * analytics.unsolved(target) / 216.0;
+            assertEquals(expected, analytics.expectedScore(target, penalty), 1e-9);
+            sum += expected;
+
+            double previous = expected;
+            for (int retries = 1; retries <= 3; retries++) {
+                double current = analytics.expectedScore(target, penalty, retries);
+                assertTrue(current <= previous);
+                previous = current;
+            }
+        }
+        assertEquals(8 * sum / 100, analytics.expectedGameScore(8, penalty, 0), 1e-9);
+        assertEquals(0.0, analytics.expectedGameScore(0, penalty, 3), 1e-9);
+    }
+
+    @Test
+    void retries() {
+        double previous = Double.MAX_VALUE;
+        for (int retries = 0; retries <= 5; retries++) {
+            double current = analytics.expectedGameScore(Settings.defaults().withRetries(retries));
+            assertTrue(current < previous);
+            previous = current;
+        }
+        // with a single target, all retries are spent on that target
+        double sum = 0;
+        for (int target = 1; target <= 100; target++) {
+            sum += analytics.expectedScore(target, 5, 2);
+        }
+        assertEquals(sum / 100, analytics.expectedGameScore(1, 5, 2), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> analytics.expectedGameScore(8, 5, -1));
+    }
+
+    @Test
+    void csv() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        analytics.writeCsv(csv, Settings.defaults());
+        String[] lines = csv.toString().split("\n");
+        assertEquals(101, lines.length);
+        int columns = 1 + analytics.maxDifference() + 1 + 1 + Settings.defaults().retries() + 1;
+        for (String line : lines) {
+            assertEquals(columns, line.split(",").length, line);
+        }
+        assertTrue(lines[1].startsWith("1,"));
+    }
+}
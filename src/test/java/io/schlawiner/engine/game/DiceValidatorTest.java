@@ -59,6 +59,13 @@ class DiceValidatorTest {
         DiceValidator.validate(dice, Term.valueOf("1 + 20 + 300"));
     }
 
+    @Test
+    void validateAnalysis() {
+        DiceValidator.validate(dice, Term.valueOf("1 + 20 + 300").analyze());
+        assertThrows(DiceException.class, () -> DiceValidator.validate(dice, Term.valueOf("1 + 2").analyze()));
+        assertThrows(DiceException.class, () -> DiceValidator.validate(dice, Term.valueOf("1 + 2 + 4").analyze()));
+    }
+
     @Test
     void used() {
         assertArrayEquals(new boolean[] { false, false, false }, DiceValidator.used(dice, null));
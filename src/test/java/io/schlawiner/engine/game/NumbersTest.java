@@ -15,6 +15,8 @@
  */
 package io.schlawiner.engine.game;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -53,4 +55,21 @@ class NumbersTest {
         assertTrue(numbers.hasNext());
         assertFalse(numbers.empty());
     }
+
+    @Test
+    void levels() {
+        TargetDistribution distribution = TargetDistribution.instance();
+        double[] averages = new double[Level.values().length];
+        for (Level level : Level.values()) {
+            Numbers numbers = new Numbers(1000, level, new Random(42));
+            double sum = 0;
+            for (int number : numbers) {
+                assertTrue(number >= 1 && number <= 100, String.valueOf(number));
+                sum += distribution.expectedDifference(number);
+            }
+            averages[level.ordinal()] = sum / numbers.size();
+        }
+        assertTrue(averages[Level.EASY.ordinal()] < averages[Level.MEDIUM.ordinal()]);
+        assertTrue(averages[Level.MEDIUM.ordinal()] < averages[Level.HARD.ordinal()]);
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TargetDistributionTest {
+
+    @Test
+    void probabilities() {
+        TargetDistribution distribution = TargetDistribution.instance();
+        for (Level level : Level.values()) {
+            double sum = 0;
+            for (int target = 1; target <= 100; target++) {
+                assertTrue(distribution.probability(level, target) > 0);
+                sum += distribution.probability(level, target);
+            }
+            assertEquals(1.0, sum, 1e-9);
+        }
+        for (int target = 1; target <= 100; target++) {
+            assertEquals(0.01, distribution.probability(Level.MEDIUM, target), 1e-9);
+        }
+    }
+
+    @Test
+    void tilt() {
+        TargetDistribution distribution = TargetDistribution.instance();
+        // 20 can be reached by almost every roll, 87 is one of the hardest targets
+        assertTrue(distribution.expectedDifference(20) < distribution.expectedDifference(87));
+        assertTrue(distribution.probability(Level.EASY, 20) > distribution.probability(Level.EASY, 87));
+        assertTrue(distribution.probability(Level.HARD, 20) < distribution.probability(Level.HARD, 87));
+    }
+}
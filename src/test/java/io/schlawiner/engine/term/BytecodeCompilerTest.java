@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BytecodeCompilerTest implements TermFixtures {
+
+    @Test
+    void apply() {
+        assertEquals(10, _2Plus3Plus5.compileToBytecode().applyAsInt(0, 0, 0));
+        assertEquals(11, _2Times3Plus5.compileToBytecode().applyAsInt(0, 0, 0));
+        assertEquals(16, _2TimesInBrackets3Plus5.compileToBytecode().applyAsInt(0, 0, 0));
+        assertEquals(25, inBrackets2Plus3Times5.compileToBytecode().applyAsInt(0, 0, 0));
+        assertEquals(12, complex.compileToBytecode("n").applyAsInt(5, 0, 0));
+    }
+
+    @Test
+    void variables() {
+        Term term = Term.valueOf("a - b / c");
+        assertEquals(9, term.compileToBytecode("a", "b", "c").applyAsInt(10, 4, 4));
+        assertEquals(3, term.compileToBytecode("c", "b", "a").applyAsInt(4, 4, 4));
+    }
+
+    @Test
+    void sameAsCompiled() {
+        Term term = Term.valueOf("(a - b) / c - a / (b - c) * 10");
+        CompiledTerm compiled = term.compile("a", "b", "c");
+        IntTernaryOperator operator = term.compileToBytecode("a", "b", "c");
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    int expected;
+                    try {
+                        expected = compiled.eval(a, b, c);
+                    } catch (TermException e) {
+                        expected = IntTernaryOperator.INVALID;
+                    }
+                    assertEquals(expected, operator.applyAsInt(a, b, c));
+                }
+            }
+        }
+    }
+
+    @Test
+    void illegalDivision() {
+        assertEquals(IntTernaryOperator.INVALID, Term.valueOf("a / b").compileToBytecode("a", "b").applyAsInt(5, 2, 0));
+        assertEquals(IntTernaryOperator.INVALID, Term.valueOf("a / b").compileToBytecode("a", "b").applyAsInt(5, 0, 0));
+        assertEquals(IntTernaryOperator.INVALID,
+                Term.valueOf("a + b / c").compileToBytecode("a", "b", "c").applyAsInt(1, 5, 2));
+    }
+
+    @Test
+    void tooManyVariables() {
+        assertThrows(TermException.class, () -> Term.valueOf("a + b + c + d").compileToBytecode("a", "b", "c", "d"));
+    }
+
+    @Test
+    void unknownVariable() {
+        assertThrows(TermException.class, () -> Term.valueOf("a + b").compileToBytecode("a"));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.List;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompactTermTest implements TermFixtures {
+
+    private static final List<String> EXPRESSIONS = List.of(
+            "2 + 3 + 5", "2 * 3 + 5", "2 * (3 + 5)", "(2 + 3) * 5", "6 * 10 + 3", "100 / (10 / 2 * 2) * 2",
+            "(1 + 2) * (3 - 4) / (5 + 6 * 7)", "1 - (2 - 3)", "(1 - 2) - 3", "2 * (3 * (4 + 5))",
+            "((1 + 2) * 3 + 4) * 5", "27 + 28 * 255 - 256 / 65536 + 16777216 * 2147483647");
+
+    @Test
+    void eval() {
+        assertEquals(10, _2Plus3Plus5.compact().eval());
+        assertEquals(11, _2Times3Plus5.compact().eval());
+        assertEquals(16, _2TimesInBrackets3Plus5.compact().eval());
+        assertEquals(25, inBrackets2Plus3Times5.compact().eval());
+        assertEquals(63, CompactTerm.valueOf("6 * 10 + 3").eval());
+        for (String expression : EXPRESSIONS) {
+            Term term = Term.valueOf(expression);
+            assertEquals(term.tryEval(), term.compact().tryEval(), expression);
+        }
+    }
+
+    @Test
+    void variables() {
+        CompactTerm compact = CompactTerm.valueOf("(a + b) * c - a");
+        assertIterableEquals(List.of("a", "b", "c", "a"), compact.getVariables());
+        assertEquals(11, compact.eval(new Assignment("a", 3), new Assignment("b", 4), new Assignment("c", 2)));
+        assertEquals("(3 + b) * c - 3", compact.print(new Assignment("a", 3)));
+        assertThrows(TermException.class, () -> compact.eval(new Assignment("a", 3)));
+
+        String name = "x".repeat(300);
+        CompactTerm longName = CompactTerm.valueOf(name + " * 2");
+        assertIterableEquals(List.of(name), longName.getVariables());
+        assertEquals(42, longName.eval(new Assignment(name, 21)));
+    }
+
+    @Test
+    void print() {
+        assertEquals("2 + 3 + 5", _2Plus3Plus5.compact().print());
+        assertEquals("2 * (3 + 5)", _2TimesInBrackets3Plus5.compact().print());
+        for (String expression : EXPRESSIONS) {
+            Term term = Term.valueOf(expression);
+            assertEquals(term.print(), term.compact().print(), expression);
+        }
+    }
+
+    @Test
+    void valuesAndOperators() {
+        for (String expression : EXPRESSIONS) {
+            Term term = Term.valueOf(expression);
+            assertArrayEquals(term.getValues(), term.compact().getValues(), expression);
+            assertIterableEquals(term.getOperators(), term.compact().getOperators());
+        }
+    }
+
+    @Test
+    void tryEval() {
+        assertEquals(OptionalInt.empty(), CompactTerm.valueOf("5 / 2 + 1").tryEval());
+        assertEquals(OptionalInt.empty(), CompactTerm.valueOf("5 / (2 - 2)").tryEval());
+        assertThrows(TermException.class, () -> CompactTerm.valueOf("5 / 2 + 1").eval());
+        // Integer.MAX_VALUE is a valid result, not a marker for an invalid division
+        assertEquals(OptionalInt.of(Integer.MAX_VALUE), CompactTerm.valueOf("2147483647 + 0").tryEval());
+        assertEquals(OptionalInt.of(Integer.MAX_VALUE), CompactTerm.valueOf("2147483647 / 1").tryEval());
+        assertEquals(Integer.MAX_VALUE, CompactTerm.valueOf("2147483647 + 0").eval());
+    }
+
+    @Test
+    void toTerm() {
+        for (String expression : EXPRESSIONS) {
+            Term term = Term.valueOf(expression);
+            Term expanded = term.compact().toTerm();
+            assertNotSame(term, expanded);
+            assertEquals(term.print(), expanded.print(), expression);
+            assertEquals(term.compact(), expanded.compact());
+        }
+        Term expanded = CompactTerm.valueOf("a * b").toTerm();
+        assertThrows(TermException.class, expanded::eval);
+    }
+
+    @Test
+    void size() {
+        // one byte per node for small values and single character variables
+        assertEquals(5, CompactTerm.valueOf("6 * 10 + 3").codeSize());
+        assertEquals(6, CompactTerm.valueOf("6 * 100 + 3").codeSize());
+        assertEquals(7, CompactTerm.valueOf("6 * 1000 + 3").codeSize());
+        assertEquals(8, CompactTerm.valueOf("(a + b) * c").codeSize());
+    }
+}
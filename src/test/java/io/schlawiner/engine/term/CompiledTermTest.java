@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledTermTest implements TermFixtures {
+
+    @Test
+    void eval() {
+        assertEquals(10, _2Plus3Plus5.compile().eval());
+        assertEquals(11, _2Times3Plus5.compile().eval());
+        assertEquals(16, _2TimesInBrackets3Plus5.compile().eval());
+        assertEquals(25, inBrackets2Plus3Times5.compile().eval());
+        assertEquals(12, complex.compile().eval(5));
+    }
+
+    @Test
+    void slots() {
+        Term term = Term.valueOf("a - b / c");
+        assertIterableEquals(List.of("a", "b", "c"), term.compile().variables());
+        assertIterableEquals(List.of("c", "b", "a"), term.compile("c", "b", "a").variables());
+        assertEquals(9, term.compile().eval(10, 4, 4));
+        assertEquals(3, term.compile("c", "b", "a").eval(4, 4, 4));
+    }
+
+    @Test
+    void reuseStack() {
+        CompiledTerm compiled = Term.valueOf("a / (b + c)").compile();
+        int[] stack = new int[compiled.stackSize()];
+        assertEquals(3, compiled.stackSize());
+        for (int a = 1; a <= 6; a++) {
+            assertEquals(10 * a / 5, compiled.eval(new int[] { 10 * a, 2, 3 }, stack));
+        }
+    }
+
+    @Test
+    void illegalDivision() {
+        assertThrows(TermException.class, () -> Term.valueOf("a / b").compile().eval(5, 2));
+        assertThrows(TermException.class, () -> Term.valueOf("a / b").compile().eval(5, 0));
+    }
+
+    @Test
+    void tryEval() {
+        CompiledTerm compiled = Term.valueOf("a / b + c").compile();
+        int[] stack = new int[compiled.stackSize()];
+        assertTrue(compiled.tryEval(new int[] { 4, 2, 1 }, stack));
+        assertEquals(3, stack[0]);
+        assertFalse(compiled.tryEval(new int[] { 5, 2, 1 }, stack));
+        assertFalse(compiled.tryEval(new int[] { 5, 0, 1 }, stack));
+        // Integer.MAX_VALUE is a valid result, not a marker for an invalid division
+        CompiledTerm max = Term.valueOf("a + b").compile();
+        assertTrue(max.tryEval(new int[] { Integer.MAX_VALUE, 0 }, stack));
+        assertEquals(Integer.MAX_VALUE, stack[0]);
+        assertTrue(compiled.tryEval(new int[] { Integer.MAX_VALUE, 1, 0 }, stack));
+        assertEquals(Integer.MAX_VALUE, stack[0]);
+        assertThrows(TermException.class, () -> compiled.tryEval(new int[] { 5, 2 }, stack));
+    }
+
+    @Test
+    void missingValues() {
+        assertThrows(TermException.class, () -> complex.compile().eval());
+    }
+
+    @Test
+    void unknownVariable() {
+        assertThrows(TermException.class, () -> Term.valueOf("a + b").compile("a"));
+    }
+}
@@ -23,7 +23,8 @@ import java.util.Stack;
 
 /**
  * Converts infix arithmetic expressions to Reverse Polish Notation (RPN) using the shunting-yard algorithm. The RPN output is
- * consumed by {@link TermBuilder} to construct a binary expression tree.
+ * consumed by {@link TermBuilder} to construct a binary expression tree. Together they're the former parser, kept to compare
+ * it with {@link TermParser} in {@link TermParserBenchmark}.
  */
 final class InfixToRPN {
 
@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpcodeTest {
+
+    @Test
+    void operators() {
+        for (Operator operator : Operator.values()) {
+            assertEquals(operator, Opcode.operator(Opcode.of(operator)));
+        }
+        assertNull(Opcode.operator(Opcode.VALUE));
+        assertNull(Opcode.operator(Opcode.VARIABLE));
+    }
+
+    @Test
+    void apply() {
+        assertEquals(8, Opcode.apply(Opcode.ADD, 6, 2));
+        assertEquals(4, Opcode.apply(Opcode.SUBTRACT, 6, 2));
+        assertEquals(12, Opcode.apply(Opcode.MULTIPLY, 6, 2));
+        assertEquals(3, Opcode.apply(Opcode.DIVIDE, 6, 2));
+        assertEquals(0, Opcode.apply(Opcode.DIVIDE, 6, 0));
+        assertThrows(IllegalArgumentException.class, () -> Opcode.apply(Opcode.VALUE, 6, 2));
+    }
+
+    @Test
+    void exact() {
+        assertTrue(Opcode.exact(6, 2));
+        assertTrue(Opcode.exact(0, 5));
+        assertFalse(Opcode.exact(5, 2));
+        assertFalse(Opcode.exact(5, 0));
+        assertTrue(Opcode.exact(Integer.MIN_VALUE, -1));
+    }
+}
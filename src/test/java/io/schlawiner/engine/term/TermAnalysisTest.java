@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TermAnalysisTest implements TermFixtures {
+
+    @Test
+    void analyze() {
+        Term term = Term.valueOf("6 * 10 + 3");
+        TermAnalysis analysis = term.analyze();
+        assertSame(term, analysis.term());
+        assertArrayEquals(new int[] { 6, 10, 3 }, analysis.values());
+        assertIterableEquals(List.of(Operator.TIMES, Operator.PLUS), analysis.operators());
+        assertTrue(analysis.variables().isEmpty());
+        assertEquals("6 * 10 + 3", analysis.print());
+        assertEquals(63, analysis.result());
+        assertTrue(analysis.valid());
+        assertTrue(analysis.resolved());
+    }
+
+    @Test
+    void sameAsTerm() {
+        for (Term term : List.of(_2Plus3Plus5, _2Times3Plus5, _2TimesInBrackets3Plus5, inBrackets2Plus3Times5,
+                Term.valueOf("(1 + 2) * (3 - 4) / (5 + 6 * 7)"), Term.valueOf("((1 + 2) * 3 + 4) * 5"))) {
+            TermAnalysis analysis = term.analyze();
+            assertArrayEquals(term.getValues(), analysis.values());
+            assertIterableEquals(term.getOperators(), analysis.operators());
+            assertEquals(term.print(), analysis.print());
+            assertEquals(term.tryEval().orElse(Integer.MIN_VALUE), analysis.valid() ? analysis.result() : Integer.MIN_VALUE);
+        }
+    }
+
+    @Test
+    void variables() {
+        TermAnalysis analysis = complex.analyze(new Assignment("n", 5));
+        assertEquals(1, analysis.variables().size());
+        assertEquals(complex.print(new Assignment("n", 5)), analysis.print());
+        assertEquals(12, analysis.result());
+
+        TermAnalysis unresolved = complex.analyze();
+        assertFalse(unresolved.resolved());
+        assertTrue(unresolved.valid());
+        assertEquals(complex.print(), unresolved.print());
+        assertThrows(TermException.class, unresolved::result);
+    }
+
+    @Test
+    void invalidDivision() {
+        TermAnalysis analysis = Term.valueOf("5 / 2 + 1").analyze();
+        assertFalse(analysis.valid());
+        assertTrue(analysis.resolved());
+        assertArrayEquals(new int[] { 5, 2, 1 }, analysis.values());
+        TermException exception = assertThrows(TermException.class, analysis::result);
+        assertEquals("Illegal division: 5 / 2", exception.getMessage());
+    }
+}
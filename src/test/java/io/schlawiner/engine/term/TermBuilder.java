@@ -19,7 +19,7 @@ import java.util.Stack;
 
 /**
  * Builds a binary expression tree from RPN tokens. Operators are pushed onto a stack; values and variables are assigned as
- * children.
+ * children. Part of the former parser, see {@link InfixToRPN}.
  */
 class TermBuilder {
 
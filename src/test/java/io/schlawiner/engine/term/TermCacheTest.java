@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TermCacheTest {
+
+    private TermCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TermCache(3);
+    }
+
+    @Test
+    void valueOf() {
+        Term term = cache.valueOf("6 * 10 + 3");
+        assertEquals(63, term.eval());
+        assertEquals("6 * 10 + 3", term.print());
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void whitespaceIgnored() {
+        Term term = cache.valueOf("6 * 10 + 3");
+        assertSame(term, cache.valueOf("6*10+3"));
+        assertSame(term, cache.valueOf("  6 *10\t+ 3 "));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(2.0 / 3, cache.hitRate(), 0.0);
+    }
+
+    @Test
+    void whitespaceBetweenOperands() {
+        assertEquals(15, cache.valueOf("12 + 3").eval());
+        assertThrows(TermException.class, () -> cache.valueOf("1 2 + 3"));
+    }
+
+    @Test
+    void normalize() {
+        assertEquals("6*10+3", TermParser.normalize(" 6 * 10 + 3 "));
+        assertEquals("(a+b)*c", TermParser.normalize("( a + b ) * c"));
+        assertEquals("1 2+3", TermParser.normalize("1   2 + 3"));
+    }
+
+    @Test
+    void frozen() {
+        Term term = cache.valueOf("(a + b) * c");
+        assertTrue(term.frozen());
+        assertFalse(Term.valueOf("(a + b) * c").frozen());
+        assertThrows(UnsupportedOperationException.class, () -> term.left(new Value(1)));
+        assertThrows(UnsupportedOperationException.class, () -> term.right(new Value(1)));
+        assertThrows(UnsupportedOperationException.class, () -> term.parent(new Term(Operator.PLUS)));
+        assertThrows(UnsupportedOperationException.class, () -> term.left().left(new Value(1)));
+        assertThrows(UnsupportedOperationException.class, () -> term.right().parent(null));
+        assertThrows(UnsupportedOperationException.class, () -> term.left().right().parent(null));
+        assertThrows(UnsupportedOperationException.class, () -> new Term(Operator.PLUS).left(term));
+        assertEquals(14, term.eval(new Assignment("a", 3), new Assignment("b", 4), new Assignment("c", 2)));
+    }
+
+    @Test
+    void invalidNotCached() {
+        assertThrows(TermException.class, () -> cache.valueOf("1 +"));
+        assertThrows(TermException.class, () -> cache.valueOf("1 +"));
+        assertThrows(TermException.class, () -> cache.valueOf(" "));
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        Term first = cache.valueOf("1 + 1");
+        cache.valueOf("1 + 2");
+        cache.valueOf("1 + 3");
+        cache.valueOf("1 + 1");
+        cache.valueOf("1 + 4");
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictions());
+        assertSame(first, cache.valueOf("1+1"));
+        assertEquals(2, cache.hits());
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    void invalidMaximumSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TermCache(0));
+    }
+
+    @Test
+    void concurrent() throws InterruptedException, ExecutionException {
+        TermCache shared = new TermCache();
+        Term expected = shared.valueOf("6 * 10 + 3");
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<Term>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> shared.valueOf("6*10 + 3")));
+            }
+            for (Future<Term> future : futures) {
+                assertSame(expected, future.get());
+            }
+        }
+        assertEquals(100, shared.hits());
+        assertEquals(1, shared.misses());
+    }
+}
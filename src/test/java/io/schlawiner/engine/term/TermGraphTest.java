@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import java.util.List;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TermGraphTest {
+
+    @Test
+    void eval() {
+        TermGraph graph = TermGraph.of(List.of(Term.valueOf("a + b - c"), Term.valueOf("(a + b) * c")), "a", "b", "c");
+        int[] results = new int[graph.terms()];
+        boolean[] valid = new boolean[graph.terms()];
+        graph.eval(new int[] { 3, 4, 2 }, graph.registers(), results, valid);
+        assertArrayEquals(new int[] { 5, 14 }, results);
+        assertArrayEquals(new boolean[] { true, true }, valid);
+    }
+
+    @Test
+    void sharedNodes() {
+        // a, b, c, a + b, (a + b) - c, (a + b) * c
+        TermGraph graph = TermGraph.of(List.of(Term.valueOf("a + b - c"), Term.valueOf("(b + a) * c")), "a", "b", "c");
+        assertEquals(6, graph.size());
+
+        TermGraph same = TermGraph.of(List.of(Term.valueOf("a * b"), Term.valueOf("b * a"), Term.valueOf("a * b")), "a", "b");
+        assertEquals(3, same.size());
+
+        // subtraction isn't commutative
+        TermGraph different = TermGraph.of(List.of(Term.valueOf("a - b"), Term.valueOf("b - a")), "a", "b");
+        assertEquals(4, different.size());
+    }
+
+    @Test
+    void sameAsCompiled() {
+        List<Term> terms = List.of(Term.valueOf("a / b / c"), Term.valueOf("a * b / c"), Term.valueOf("a / (b - c)"),
+                Term.valueOf("(a - b) / c"), Term.valueOf("a - b * c"), Term.valueOf("c / a + b"), Term.valueOf("2 * a + 7"));
+        TermGraph graph = TermGraph.of(terms, "a", "b", "c");
+        TermGraph.Registers registers = graph.registers();
+        int[] results = new int[graph.terms()];
+        boolean[] valid = new boolean[graph.terms()];
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    int[] values = new int[] { a * 10, b, c };
+                    graph.eval(values, registers, results, valid);
+                    for (int i = 0; i < terms.size(); i++) {
+                        OptionalInt expected = terms.get(i).tryEval(new Assignment("a", values[0]),
+                                new Assignment("b", values[1]), new Assignment("c", values[2]));
+                        String message = terms.get(i) + " for " + a * 10 + ", " + b + ", " + c;
+                        assertEquals(expected.isPresent(), valid[i], message);
+                        if (valid[i]) {
+                            assertEquals(expected.getAsInt(), results[i], message);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void invalidDivision() {
+        TermGraph graph = TermGraph.of(List.of(Term.valueOf("a / b + c"), Term.valueOf("a + c")), "a", "b", "c");
+        int[] results = new int[graph.terms()];
+        boolean[] valid = new boolean[graph.terms()];
+        graph.eval(new int[] { 5, 2, 1 }, graph.registers(), results, valid);
+        assertArrayEquals(new boolean[] { false, true }, valid);
+        assertEquals(6, results[1]);
+        graph.eval(new int[] { 5, 0, 1 }, graph.registers(), results, valid);
+        assertArrayEquals(new boolean[] { false, true }, valid);
+        assertEquals(6, results[1]);
+    }
+
+    @Test
+    void maxValue() {
+        // Integer.MAX_VALUE is a valid result, not a marker for an invalid division
+        TermGraph graph = TermGraph.of(List.of(Term.valueOf("a + b"), Term.valueOf("a / c")), "a", "b", "c");
+        int[] results = new int[graph.terms()];
+        boolean[] valid = new boolean[graph.terms()];
+        graph.eval(new int[] { Integer.MAX_VALUE, 0, 1 }, graph.registers(), results, valid);
+        assertArrayEquals(new int[] { Integer.MAX_VALUE, Integer.MAX_VALUE }, results);
+        assertArrayEquals(new boolean[] { true, true }, valid);
+    }
+
+    @Test
+    void unknownVariable() {
+        assertThrows(TermException.class, () -> TermGraph.of(List.of(Term.valueOf("a + b")), "a"));
+    }
+}
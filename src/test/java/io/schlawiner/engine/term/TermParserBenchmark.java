@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.term;
+
+import static io.schlawiner.engine.term.InfixToRPN.infixToRPN;
+
+/**
+ * Compares {@link TermParser} with the former parser, which converted the expression to RPN tokens using
+ * {@link InfixToRPN} and built the tree using {@link TermBuilder}. Prints the time and the allocated bytes per parsed term.
+ */
+public final class TermParserBenchmark {
+
+    private static final String[] EXPRESSIONS = new String[] {
+            "30 + 5 - 20", "(10 + 2) * 3", "600 / (5 - 2) + 1", "a * b / c", "2 * 10 - 100 / 4", "((6 + 60) * 1)",
+    };
+    private static final int ROUNDS = 5;
+    private static final int ITERATIONS = 1_000_000;
+
+    public static void main(final String[] args) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory
+                .getThreadMXBean();
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                checksum += parseRPN(EXPRESSIONS[i % EXPRESSIONS.length]).operator().ordinal();
+            }
+            print("RPN parser", start, threads.getCurrentThreadAllocatedBytes() - bytes, checksum);
+
+            bytes = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            checksum = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                checksum += TermParser.parse(EXPRESSIONS[i % EXPRESSIONS.length]).operator().ordinal();
+            }
+            print("Single-pass parser", start, threads.getCurrentThreadAllocatedBytes() - bytes, checksum);
+        }
+    }
+
+    /** The former implementation of {@link TermParser#parse(String)}. */
+    static Term parseRPN(final String expression) {
+        if (expression == null || expression.trim().isEmpty()) {
+            throw new TermException("Empty term");
+        }
+        String[] rpn = infixToRPN(expression);
+        if (rpn.length == 0) {
+            throw new TermException("Invalid term: '%s'".formatted(expression));
+        }
+        TermBuilder termBuilder = new TermBuilder(expression);
+        for (int i = rpn.length - 1; i >= 0; i--) {
+            String token = rpn[i];
+            if (Operator.isOperator(token)) {
+                termBuilder.op(Operator.toOperator(token));
+            } else {
+                try {
+                    termBuilder.val(Integer.parseInt(token));
+                } catch (NumberFormatException e) {
+                    termBuilder.var(token);
+                }
+            }
+        }
+        Term term = termBuilder.build();
+        if (!term.complete()) {
+            throw new TermException("Invalid term: '%s'".formatted(expression));
+        }
+        return term;
+    }
+
+    private static void print(final String name, final long start, final long bytes, final long checksum) {
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-20s %5d ms, %6.1f ns, %5d bytes per term (checksum %d)%n", name, nanos / 1_000_000,
+                (double) nanos / ITERATIONS, bytes / ITERATIONS, checksum);
+    }
+}
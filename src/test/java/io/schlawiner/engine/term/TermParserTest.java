@@ -18,6 +18,7 @@ package io.schlawiner.engine.term;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TermParserTest {
 
@@ -38,4 +39,55 @@ class TermParserTest {
         assertEquals("(10 + 2) * 3", TermParser.parse("(10 + 2) * 3").print());
         assertEquals("(10 + 2) * 3", TermParser.parse("((10 + 2) * (3))").print());
     }
+
+    @Test
+    void sameAsRPN() {
+        String[] expressions = new String[] { "1 + 2", "1 - 2 - 3", "1 - (2 - 3)", "2 * 3 + 4 * 5", "2 * (3 + 4) * 5",
+                "100 / 5 / 2", "600/(5-2)+1", "a * b / c", "(a + b) * c - d", "((((1 + 2))))", "x1 + y2 * 3", };
+        for (String expression : expressions) {
+            Term expected = TermParserBenchmark.parseRPN(expression);
+            Term actual = TermParser.parse(expression);
+            assertEquals(expected.print(), actual.print(), expression);
+            assertEquals(expected.getOperators(), actual.getOperators(), expression);
+            assertEquals(expected.getVariables().size(), actual.getVariables().size(), expression);
+            assertEquals(expected.hasVariables, actual.hasVariables, expression);
+        }
+    }
+
+    @Test
+    void associativity() {
+        assertEquals(-4, TermParser.parse("1 - 2 - 3").eval());
+        assertEquals(2, TermParser.parse("1 - (2 - 3)").eval());
+        assertEquals(10, TermParser.parse("100 / 5 / 2").eval());
+        assertEquals(20, TermParser.parse("100 / (10 / 2 * 2) * 2").eval());
+    }
+
+    @Test
+    void deeplyNested() {
+        String expression = "(".repeat(100_000) + "1 + 2" + ")".repeat(100_000);
+        assertEquals(3, TermParser.parse(expression, Integer.MAX_VALUE).eval());
+    }
+
+    @Test
+    void maxTokens() {
+        assertEquals(11, TermParser.tokens("(10 + 2) * 3 - abc / 4"));
+        assertEquals(3, Term.valueOf("1 + 2", 3).eval());
+        assertEquals(3, Term.valueOf("    1    +    2    ", 3).eval());
+        assertThrows(TermException.class, () -> Term.valueOf("(1 + 2)", 3));
+        assertThrows(IllegalArgumentException.class, () -> Term.valueOf("1", 0));
+        assertThrows(IllegalArgumentException.class, () -> TermParser.parse("1", -1));
+
+        String expression = "1" + " + 1".repeat(Term.DEFAULT_MAX_TOKENS);
+        TermException exception = assertThrows(TermException.class, () -> Term.valueOf(expression));
+        assertEquals("Term exceeds %d tokens".formatted(Term.DEFAULT_MAX_TOKENS), exception.getMessage());
+        assertEquals(Term.DEFAULT_MAX_TOKENS + 1, Term.valueOf(expression, Integer.MAX_VALUE).eval());
+    }
+
+    @Test
+    void invalid() {
+        for (String expression : new String[] { "(1 + 2", "1 + 2)", "()", "1 + ()", "(1 +) 2", "1 + * 2", "1 2 + 3", "1 +",
+                "* 1 + 2", "(1) (2)", "1 + 2 3", }) {
+            assertThrows(TermException.class, () -> TermParser.parse(expression), expression);
+        }
+    }
 }
@@ -16,6 +16,7 @@
 package io.schlawiner.engine.term;
 
 import java.util.List;
+import java.util.OptionalInt;
 
 import org.junit.jupiter.api.Test;
 
@@ -28,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TermTest implements TermFixtures {
 
@@ -80,6 +82,16 @@ class TermTest implements TermFixtures {
         assertEquals(12, complex.eval(new Assignment("n", 5)));
     }
 
+    @Test
+    void tryEval() {
+        assertEquals(OptionalInt.of(10), _2Plus3Plus5.tryEval());
+        assertEquals(OptionalInt.of(12), complex.tryEval(new Assignment("n", 5)));
+        assertEquals(OptionalInt.empty(), Term.valueOf("5 / 2 + 1").tryEval());
+        assertEquals(OptionalInt.empty(), Term.valueOf("1 + a / (2 - 2)").tryEval(new Assignment("a", 3)));
+        assertThrows(TermException.class, () -> Term.valueOf("5 / 2 + 1").eval());
+        assertThrows(TermException.class, () -> Term.valueOf("a + 1").tryEval());
+    }
+
     @Test
     void print() {
         assertEquals("2 + 3 + 5", _2Plus3Plus5.print());
@@ -106,4 +118,29 @@ class TermTest implements TermFixtures {
         assertIterableEquals(List.of(PLUS, TIMES), inBrackets2Plus3Times5.getOperators());
         assertIterableEquals(List.of(TIMES, MINUS, PLUS, PLUS, DIVIDED), complex.getOperators());
     }
+
+    @Test
+    void deepTrees() {
+        int depth = 100_000;
+        // right-deep: 1 - (1 - (1 - ... - 1))
+        Term right = Term.valueOf("(1 - ".repeat(depth) + "1" + ")".repeat(depth), Integer.MAX_VALUE);
+        assertEquals(1, right.eval());
+        assertEquals(depth + 1, right.getValues().length);
+        assertEquals(depth, right.getOperators().size());
+        assertEquals(right.print(), right.analyze().print());
+        assertEquals(1, right.compile().eval());
+        assertEquals(1, right.compact().eval());
+        TermGraph graph = TermGraph.of(List.of(right));
+        int[] results = new int[1];
+        boolean[] valid = new boolean[1];
+        graph.eval(new int[0], graph.registers(), results, valid);
+        assertEquals(1, results[0]);
+        assertTrue(valid[0]);
+
+        // left-deep: 1 * 2 * 2 * ... / 2 / 2 / ...
+        Term left = Term.valueOf("1" + " * 2".repeat(20) + " / 2".repeat(20) + " + a".repeat(depth), Integer.MAX_VALUE);
+        assertEquals(1 + depth, left.eval(new Assignment("a", 1)));
+        assertEquals(depth, left.getVariables().size());
+        assertEquals(1 + depth, left.analyze(new Assignment("a", 1)).result());
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2023 Harald Pehl
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.schlawiner.engine.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedCacheTest {
+
+    @Test
+    void get() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3);
+        String value = cache.get(1, String::valueOf);
+        assertSame(value, cache.get(1, key -> "other"));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0.5, cache.hitRate());
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3);
+        cache.get(1, String::valueOf);
+        cache.get(2, String::valueOf);
+        cache.get(3, String::valueOf);
+        cache.get(1, String::valueOf);
+        cache.get(4, String::valueOf);
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictions());
+        assertEquals("1", cache.get(1, key -> "reloaded"));
+        assertEquals("reloaded", cache.get(2, key -> "reloaded"));
+    }
+
+    @Test
+    void loaderFails() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3);
+        assertThrows(IllegalStateException.class, () -> cache.get(1, key -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void stripes() {
+        assertEquals(1, new BoundedCache<>(3).stripes());
+        assertEquals(1, new BoundedCache<>(2 * BoundedCache.MIN_STRIPE_SIZE - 1).stripes());
+        assertEquals(2, new BoundedCache<>(2 * BoundedCache.MIN_STRIPE_SIZE).stripes());
+        assertEquals(4, new BoundedCache<>(7 * BoundedCache.MIN_STRIPE_SIZE).stripes());
+        assertEquals(BoundedCache.MAX_STRIPES, new BoundedCache<>(100 * BoundedCache.MIN_STRIPE_SIZE).stripes());
+
+        BoundedCache<Integer, String> cache = new BoundedCache<>(2 * BoundedCache.MIN_STRIPE_SIZE);
+        for (int key = 0; key < 1000; key++) {
+            cache.get(key, String::valueOf);
+        }
+        assertEquals(cache.maximumSize(), cache.size());
+        assertEquals(1000 - cache.maximumSize(), cache.evictions());
+    }
+
+    @Test
+    void illegalSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCache<>(0));
+    }
+}